@@ -0,0 +1,377 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.volley;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Sends several requests in a single HTTP round trip, by posting them to a batch endpoint.
+ *
+ * The body is a json array with an object per request, in order, such as
+ * <pre>
+ * [{"method": "GET", "url": "http://...", "headers": {...}, "body": ...}, ...]
+ * </pre>
+ * The endpoint is expected to answer with a json array with an object per request,
+ * in the very same order, such as
+ * <pre>
+ * [{"status": 200, "headers": {...}, "body": ...}, ...]
+ * </pre>
+ *
+ * Each response is parsed by its own request, on the network dispatcher thread,
+ * and delivered through its own listeners. Cacheable responses are stored in the cache,
+ * so later requests for the same resources can be served from it.
+ * Should the batch as a whole fail, the error is delivered to every request.
+ *
+ * Json bodies are sent as is, any other body is sent as a string, so only requests with textual
+ * bodies should be batched.
+ *
+ * Canceling a batched request only stops the delivery to it, the batch itself is only canceled
+ * once every request in it has been canceled.
+ */
+public class BatchRequest extends Request<List<Response<?>>> {
+	private static final String PROTOCOL_CHARSET = "utf-8";
+	private static final String PROTOCOL_CONTENT_TYPE = "application/json; charset=" + PROTOCOL_CHARSET;
+	private static final String CONTENT_TYPE = "Content-Type";
+	private static final String JSON_CONTENT_TYPE = "application/json";
+
+	private static final String METHOD = "method";
+	private static final String URL = "url";
+	private static final String HEADERS = "headers";
+	private static final String BODY = "body";
+	private static final String STATUS = "status";
+
+	private final List<Request<?>> requests;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "No need to use in the toString")
+	private volatile RequestQueue requestQueue;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "No need to use in the toString")
+	private volatile byte[] body;
+
+	/**
+	 * Creates a new BatchRequest.
+	 *
+	 * @param url The url of the batch endpoint.
+	 * @param requests The requests to be sent, in order.
+	 * @param errListener The listener for errors of the batch as a whole,
+	 *                    notified after the batched requests.
+	 */
+	public BatchRequest(@NonNull final String url, @NonNull final Collection<? extends Request<?>> requests,
+			@Nullable final Response.ErrorListener errListener) {
+		super(Method.POST, url, errListener);
+
+		/*
+		 * Batches are never cached, and must not be held by the queue behind any other batch
+		 * in flight to the same endpoint, as it does for cacheable requests
+		 */
+		setShouldCache(false);
+
+		if (requests.isEmpty()) {
+			throw new IllegalArgumentException("A batch needs at least one request");
+		}
+
+		this.requests = Collections.unmodifiableList(new ArrayList<>(requests));
+		for (final Request<?> request : this.requests) {
+			request.addMarker("batched");
+		}
+	}
+
+	/**
+	 * Retrieves the batched requests.
+	 *
+	 * @return The batched requests, in order.
+	 */
+	@NonNull
+	public List<Request<?>> getRequests() {
+		return requests;
+	}
+
+	@Override
+	public Request<?> setRequestQueue(final RequestQueue requestQueue) {
+		this.requestQueue = requestQueue;
+
+		// Batched requests may need the queue's cache to invalidate / store entries
+		for (final Request<?> request : requests) {
+			request.setRequestQueue(requestQueue);
+		}
+
+		return super.setRequestQueue(requestQueue);
+	}
+
+	@Override
+	public String getBodyContentType() {
+		return PROTOCOL_CONTENT_TYPE;
+	}
+
+	@SuppressFBWarnings(value = "EI_EXPOSE_REP",
+		justification = "The body is handed over to the network stack, copying it defeats the purpose")
+	@Override
+	public byte[] getBody() throws AuthFailureError {
+		if (body == null) {
+			body = encodeBody();
+		}
+
+		return body;
+	}
+
+	@NonNull
+	private byte[] encodeBody() throws AuthFailureError {
+		final JsonArray array = new JsonArray();
+		for (final Request<?> request : requests) {
+			array.add(encodeRequest(request));
+		}
+
+		try {
+			return array.toString().getBytes(PROTOCOL_CHARSET);
+		} catch (final UnsupportedEncodingException e) {
+			throw new AssertionError("Unsupported encoding " + PROTOCOL_CHARSET, e);
+		}
+	}
+
+	@NonNull
+	private static JsonObject encodeRequest(@NonNull final Request<?> request) throws AuthFailureError {
+		final byte[] requestBody = request.getBody();
+		final Map<String, String> headers = new HashMap<>(request.getHeaders());
+
+		final JsonObject json = new JsonObject();
+		json.addProperty(METHOD, getMethodName(request.getMethod(), requestBody != null));
+		json.addProperty(URL, request.getUrl());
+
+		if (requestBody != null) {
+			headers.put(CONTENT_TYPE, request.getBodyContentType());
+			json.add(BODY, encodeRequestBody(request, requestBody));
+		}
+
+		final JsonObject jsonHeaders = new JsonObject();
+		for (final Map.Entry<String, String> header : headers.entrySet()) {
+			jsonHeaders.addProperty(header.getKey(), header.getValue());
+		}
+		json.add(HEADERS, jsonHeaders);
+
+		return json;
+	}
+
+	@NonNull
+	private static JsonElement encodeRequestBody(@NonNull final Request<?> request,
+			@NonNull final byte[] requestBody) {
+		final String contentType = request.getBodyContentType();
+		final String text;
+		try {
+			text = new String(requestBody, HttpHeaderParser.parseCharset(
+					Collections.singletonMap(CONTENT_TYPE, contentType)));
+		} catch (final UnsupportedEncodingException e) {
+			throw new IllegalArgumentException("Can't batch request with body in " + contentType, e);
+		}
+
+		if (contentType != null && contentType.startsWith(JSON_CONTENT_TYPE)) {
+			return new JsonParser().parse(text);
+		}
+
+		return new JsonPrimitive(text);
+	}
+
+	@NonNull
+	private static String getMethodName(final int method, final boolean hasBody) {
+		switch (method) {
+		case Method.DEPRECATED_GET_OR_POST:
+			return hasBody ? "POST" : "GET";
+		case Method.GET:
+			return "GET";
+		case Method.POST:
+			return "POST";
+		case Method.PUT:
+			return "PUT";
+		case Method.DELETE:
+			return "DELETE";
+		case Method.HEAD:
+			return "HEAD";
+		case Method.OPTIONS:
+			return "OPTIONS";
+		case Method.TRACE:
+			return "TRACE";
+		case Method.PATCH:
+			return "PATCH";
+		default:
+			throw new IllegalArgumentException("Unknown method " + method);
+		}
+	}
+
+	@Override
+	protected Response<List<Response<?>>> parseNetworkResponse(final NetworkResponse response) {
+		final JsonArray array;
+		try {
+			final String json = new String(response.data, HttpHeaderParser.parseCharset(response.headers));
+			array = new JsonParser().parse(json).getAsJsonArray();
+		} catch (final UnsupportedEncodingException | JsonParseException | IllegalStateException e) {
+			return Response.error(new ParseError(e));
+		}
+
+		if (array.size() != requests.size()) {
+			return Response.error(new ParseError(new IllegalStateException("Expected "
+					+ requests.size() + " responses, got " + array.size())));
+		}
+
+		final List<Response<?>> responses = new ArrayList<>(requests.size());
+		try {
+			for (int i = 0; i < array.size(); i++) {
+				responses.add(parseResponse(requests.get(i), array.get(i).getAsJsonObject()));
+			}
+		} catch (final UnsupportedEncodingException | JsonParseException
+				| IllegalStateException | UnsupportedOperationException e) {
+			return Response.error(new ParseError(e));
+		}
+
+		return Response.success(responses, null);
+	}
+
+	@NonNull
+	private Response<?> parseResponse(@NonNull final Request<?> request, @NonNull final JsonObject json)
+			throws UnsupportedEncodingException {
+		final Map<String, String> headers = new HashMap<>();
+		final JsonElement jsonHeaders = json.get(HEADERS);
+		if (jsonHeaders != null && jsonHeaders.isJsonObject()) {
+			for (final Map.Entry<String, JsonElement> header : jsonHeaders.getAsJsonObject().entrySet()) {
+				headers.put(header.getKey(), header.getValue().getAsString());
+			}
+		}
+
+		final JsonElement jsonBody = json.get(BODY);
+		final byte[] data = jsonBody == null || jsonBody.isJsonNull() ? new byte[0]
+				: jsonBody.toString().getBytes(PROTOCOL_CHARSET);
+
+		final JsonElement status = json.get(STATUS);
+		if (status == null) {
+			throw new JsonParseException("Missing status in batched response " + json);
+		}
+
+		final NetworkResponse networkResponse = new NetworkResponse(status.getAsInt(), data, headers, false);
+
+		if (networkResponse.statusCode < HttpURLConnection.HTTP_OK
+				|| networkResponse.statusCode >= HttpURLConnection.HTTP_MULT_CHOICE) {
+			final VolleyError error;
+			if (networkResponse.statusCode == HttpURLConnection.HTTP_UNAUTHORIZED
+					|| networkResponse.statusCode == HttpURLConnection.HTTP_FORBIDDEN) {
+				error = new AuthFailureError(networkResponse);
+			} else {
+				error = new ServerError(networkResponse);
+			}
+			return Response.error(request.parseNetworkError(error));
+		}
+
+		final Response<?> response = request.parseNetworkResponse(networkResponse);
+		final RequestQueue queue = requestQueue;
+		if (response.isSuccess() && response.cacheEntry != null && request.shouldCache() && queue != null) {
+			queue.getCache().put(request.getCacheKey(), response.cacheEntry);
+			request.addMarker("batch-cache-written");
+		}
+
+		return response;
+	}
+
+	@Override
+	protected void deliverResponse(final List<Response<?>> responses) {
+		for (int i = 0; i < responses.size(); i++) {
+			final Request<?> request = requests.get(i);
+			if (request.isCanceled()) {
+				finish(request, "canceled-at-delivery");
+				continue;
+			}
+
+			deliver(request, responses.get(i));
+			finish(request, "done");
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> void deliver(@NonNull final Request<T> request, @NonNull final Response<?> response) {
+		if (response.isSuccess()) {
+			request.deliverResponse((T) response.result);
+		} else {
+			request.deliverError(response.error);
+		}
+	}
+
+	@Override
+	public void deliverError(final VolleyError error) {
+		for (final Request<?> request : requests) {
+			if (!request.isCanceled()) {
+				request.deliverError(error);
+			}
+			finish(request, "batch-error");
+		}
+
+		super.deliverError(error);
+	}
+
+	/**
+	 * Finishes a batched request, without telling the queue. Batched requests were never added to it,
+	 * so the queue finishing one of them would release any other request for the same cache key
+	 * it's holding back, before the one in flight for it completes.
+	 *
+	 * @param request The batched request to finish.
+	 * @param tag The tag of the finish marker.
+	 */
+	private static void finish(@NonNull final Request<?> request, @NonNull final String tag) {
+		request.setRequestQueue(null);
+		request.finish(tag);
+	}
+
+	@Override
+	public void cancel() {
+		for (final Request<?> request : requests) {
+			request.cancel();
+		}
+
+		super.cancel();
+	}
+
+	@Override
+	public boolean isCanceled() {
+		for (final Request<?> request : requests) {
+			if (!request.isCanceled()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchRequest{ requests=" + requests
+			+ " } " + super.toString();
+	}
+}
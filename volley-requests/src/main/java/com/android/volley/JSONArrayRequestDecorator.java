@@ -18,17 +18,27 @@ package com.android.volley;
 import android.support.annotation.NonNull;
 
 import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 
 /**
  * Class to parse a list of all items in a collection from a NetworkResponse
  * depending on a key.
  *
+ * If the decorated request is a {@link JsonReaderParser}, the envelope is scanned
+ * with a pull parser and the request is handed a reader positioned at the array,
+ * so the payload is parsed exactly once. Otherwise, the array is extracted and
+ * re-serialized for the decorated request to parse it.
+ *
  * @author fpredassi
  *
  * @param <T> The type of the request being decorated.
@@ -49,6 +59,12 @@ public class JSONArrayRequestDecorator<T> extends RequestDecorator<T> {
 
 	@Override
 	protected Response<T> parseNetworkResponse(final NetworkResponse response) {
+		if (wrapped instanceof JsonReaderParser) {
+			@SuppressWarnings("unchecked")
+			final JsonReaderParser<T> parser = (JsonReaderParser<T>) wrapped;
+			return parseElements(parser, response);
+		}
+
 		try {
 			final String headersCharset = HttpHeaderParser.parseCharset(response.headers);
 			final String json = new String(response.data, headersCharset);
@@ -64,6 +80,35 @@ public class JSONArrayRequestDecorator<T> extends RequestDecorator<T> {
 		}
 	}
 
+	@NonNull
+	private Response<T> parseElements(@NonNull final JsonReaderParser<T> parser,
+			@NonNull final NetworkResponse response) {
+		try {
+			final JsonReader reader = new JsonReader(new InputStreamReader(
+					new ByteArrayInputStream(response.data),
+					HttpHeaderParser.parseCharset(response.headers)));
+
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if (elementsKey.equals(reader.nextName())) {
+					if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+						return Response.error(new ParseError(new JSONException(
+								"Value at " + elementsKey + " is not an array")));
+					}
+					return parser.parseJson(reader, response);
+				}
+				reader.skipValue();
+			}
+
+			return Response.error(new ParseError(new JSONException("No value for " + elementsKey)));
+		} catch (final UnsupportedEncodingException e) {
+			return Response.error(new ParseError(e));
+		} catch (final IOException | IllegalStateException e) {
+			// Malformed json, or an envelope that is not an object
+			return Response.error(new ParseError(e));
+		}
+	}
+
 	@NonNull
 	public String getElementsKey() {
 		return elementsKey;
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.volley;
+
+import android.support.annotation.NonNull;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Interface for requests able to parse their result from a {@link JsonReader}
+ * already positioned at the value to be decoded.
+ *
+ * Decorators that unwrap a JSON envelope, such as {@link JSONArrayRequestDecorator},
+ * use it to hand over the relevant portion of the response without re-serializing it.
+ *
+ * @param <T> The type of the parsed result.
+ */
+public interface JsonReaderParser<T> {
+
+	/**
+	 * Parses the value at the reader's current position.
+	 *
+	 * @param reader The reader, positioned at the value to be parsed.
+	 * @param response The network response being parsed, to retrieve headers from.
+	 * @return The parsed response, or an error one if the value could not be parsed.
+	 */
+	@NonNull
+	Response<T> parseJson(@NonNull JsonReader reader, @NonNull NetworkResponse response);
+}
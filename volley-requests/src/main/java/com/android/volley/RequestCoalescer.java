@@ -0,0 +1,237 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.volley;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Adds requests to a {@link RequestQueue}, attaching identical GET / HEAD requests
+ * to the one already in flight instead of hitting the network again.
+ *
+ * Requests are considered identical if they share method, url and headers. The response
+ * is parsed only once, and the very same result is delivered to every attached request,
+ * so listeners should not modify it.
+ *
+ * Each caller keeps control of its own request. Canceling it only stops the delivery to it,
+ * the request in flight is only canceled once every attached request has been canceled.
+ * Notice {@link RequestQueue#cancelAll(Object)} only reaches the first request of each group,
+ * the others need to be canceled on their own.
+ */
+public class RequestCoalescer {
+	private final RequestQueue queue;
+	private final Map<String, CoalescedRequest<?>> inFlight = new HashMap<>();
+
+	/**
+	 * Creates a new RequestCoalescer.
+	 *
+	 * @param queue The queue to which requests are added.
+	 */
+	public RequestCoalescer(@NonNull final RequestQueue queue) {
+		this.queue = queue;
+	}
+
+	/**
+	 * Adds a request to the queue, unless an identical one is already in flight,
+	 * in which case the request is attached to it.
+	 *
+	 * @param request The request to be added.
+	 * @param <T> The type of the response.
+	 * @return The given request, to be used to cancel it if needed.
+	 */
+	@NonNull
+	public <T> Request<T> add(@NonNull final Request<T> request) {
+		final String key = getKey(request);
+		if (key == null) {
+			queue.add(request);
+			return request;
+		}
+
+		synchronized (inFlight) {
+			@SuppressWarnings("unchecked")
+			final CoalescedRequest<T> coalesced = (CoalescedRequest<T>) inFlight.get(key);
+			if (coalesced != null && coalesced.attach(request)) {
+				request.setRequestQueue(queue);
+				request.addMarker("coalesced");
+				return request;
+			}
+
+			final CoalescedRequest<T> leader = new CoalescedRequest<>(this, key, request);
+			inFlight.put(key, leader);
+			queue.add(leader);
+		}
+
+		return request;
+	}
+
+	/*package*/ void finish(@NonNull final String key, @NonNull final CoalescedRequest<?> request) {
+		synchronized (inFlight) {
+			// A newer request may already be in flight under the same key
+			if (inFlight.get(key) == request) {
+				inFlight.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Computes the key under which identical requests are coalesced.
+	 *
+	 * @param request The request whose key to compute.
+	 * @return The key for the request, or null if it must not be coalesced.
+	 */
+	@Nullable
+	protected String getKey(@NonNull final Request<?> request) {
+		final int method = request.getMethod();
+		if (method != Request.Method.GET && method != Request.Method.HEAD) {
+			// Only safe methods may be coalesced
+			return null;
+		}
+
+		final Map<String, String> headers;
+		try {
+			headers = request.getHeaders();
+		} catch (final AuthFailureError e) {
+			return null;
+		}
+
+		// Sort headers, so their order doesn't matter
+		return method + " " + request.getUrl() + " " + new TreeMap<>(headers);
+	}
+
+	@Override
+	public String toString() {
+		return "RequestCoalescer{ inFlight=" + inFlight.keySet() + " }";
+	}
+
+	/**
+	 * The request actually sent, on behalf of all attached requests.
+	 *
+	 * @param <T> The type of the response.
+	 */
+	/*package*/ static class CoalescedRequest<T> extends RequestDecorator<T> {
+		private final RequestCoalescer coalescer;
+		private final String key;
+		@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+			justification = "No need to use in the toString")
+		private final List<Request<T>> followers = new ArrayList<>();
+		private boolean delivered;
+
+		/*package*/ CoalescedRequest(@NonNull final RequestCoalescer coalescer, @NonNull final String key,
+				@NonNull final Request<T> request) {
+			super(request);
+			this.coalescer = coalescer;
+			this.key = key;
+		}
+
+		/**
+		 * Attaches a request to this one, so it gets the same response.
+		 *
+		 * @param request The request to attach.
+		 * @return True if the request was attached, false if it's too late to do so.
+		 */
+		/*package*/ synchronized boolean attach(@NonNull final Request<T> request) {
+			if (delivered || isCanceled()) {
+				return false;
+			}
+
+			followers.add(request);
+			return true;
+		}
+
+		@Override
+		public synchronized boolean isCanceled() {
+			if (!wrapped.isCanceled()) {
+				return false;
+			}
+
+			for (final Request<T> follower : followers) {
+				if (!follower.isCanceled()) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		protected void deliverResponse(final T response) {
+			for (final Request<T> request : getRecipients()) {
+				request.markDelivered();
+				request.deliverResponse(response);
+			}
+		}
+
+		@Override
+		public void deliverError(final VolleyError error) {
+			for (final Request<T> request : getRecipients()) {
+				request.markDelivered();
+				request.deliverError(error);
+			}
+		}
+
+		@NonNull
+		private synchronized List<Request<T>> getRecipients() {
+			delivered = true;
+
+			final List<Request<T>> recipients = new ArrayList<>(followers.size() + 1);
+			if (!wrapped.isCanceled()) {
+				recipients.add(wrapped);
+			}
+			for (final Request<T> follower : followers) {
+				if (!follower.isCanceled()) {
+					recipients.add(follower);
+				}
+			}
+
+			return recipients;
+		}
+
+		@NonNull
+		private synchronized List<Request<T>> getAttached() {
+			final List<Request<T>> attached = new ArrayList<>(followers.size() + 1);
+			attached.add(wrapped);
+			attached.addAll(followers);
+			return attached;
+		}
+
+		@Override
+		/*package*/ void finish(final String tag) {
+			coalescer.finish(key, this);
+
+			// The queue only finishes this one, attached requests are finished along with it
+			for (final Request<T> request : getAttached()) {
+				request.finish(tag);
+			}
+
+			super.finish(tag);
+		}
+
+		@Override
+		public String toString() {
+			return "CoalescedRequest{ key='" + key + '\''
+				+ ", followers=" + followers.size()
+				+ " } " + super.toString();
+		}
+	}
+}
@@ -34,6 +34,9 @@ public abstract class RequestDecorator<T> extends Request<T> {
 	public RequestDecorator(@NonNull final Request<T> request) {
 		super(request.getMethod(), request.getUrl(), null);
 		this.wrapped = request;
+
+		// shouldCache is final, so it can't be delegated
+		setShouldCache(request.shouldCache());
 	}
 
 	public Request<T> getRequest() {
@@ -188,4 +191,18 @@ public abstract class RequestDecorator<T> extends Request<T> {
 	public Response.ErrorListener getErrorListener() {
 		return wrapped.getErrorListener();
 	}
+
+	@Override
+	/*package*/ void finish(final String tag) {
+		super.finish(tag);
+		onFinish();
+	}
+
+	/**
+	 * Called once the queue is done with this request, be it delivered, failed or canceled.
+	 * Request#finish is package private, this hook lets decorators anywhere know about it.
+	 */
+	protected void onFinish() {
+		// Nothing to do by default
+	}
 }
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.loader;
+
+import android.support.annotation.NonNull;
+
+import java.util.Random;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * A {@link PollingPolicy} that backs off exponentially while responses don't change or fail,
+ * and goes back to the base delay as soon as they change.
+ *
+ * Every delay is randomly spread by the jitter factor, so devices don't poll all at once,
+ * and capped to the max delay.
+ */
+public class BackoffPollingPolicy implements PollingPolicy {
+	private static final float DEFAULT_MULTIPLIER = 2f;
+	private static final float DEFAULT_JITTER = 0.1f;
+
+	private final long baseDelayMs;
+	private final long maxDelayMs;
+	private final float multiplier;
+	private final float jitter;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "No need to use in the toString")
+	private final Random random = new Random();
+
+	private long currentDelayMs;
+
+	/**
+	 * Creates a new BackoffPollingPolicy that doubles the delay, with 10% jitter.
+	 *
+	 * @param baseDelayMs The delay while responses change, in milliseconds.
+	 * @param maxDelayMs The maximum delay, in milliseconds.
+	 */
+	public BackoffPollingPolicy(final long baseDelayMs, final long maxDelayMs) {
+		this(baseDelayMs, maxDelayMs, DEFAULT_MULTIPLIER, DEFAULT_JITTER);
+	}
+
+	/**
+	 * Creates a new BackoffPollingPolicy.
+	 *
+	 * @param baseDelayMs The delay while responses change, in milliseconds.
+	 * @param maxDelayMs The maximum delay, in milliseconds.
+	 * @param multiplier The factor by which the delay grows for each unchanged or failed response.
+	 * @param jitter The fraction of each delay by which it's randomly spread, from 0 to 1.
+	 */
+	public BackoffPollingPolicy(final long baseDelayMs, final long maxDelayMs, final float multiplier,
+			final float jitter) {
+		if (baseDelayMs <= 0) {
+			throw new IllegalArgumentException("Base delay must be positive, got " + baseDelayMs);
+		}
+
+		if (maxDelayMs < baseDelayMs) {
+			throw new IllegalArgumentException("Max delay must be at least the base delay, got " + maxDelayMs);
+		}
+
+		if (multiplier < 1) {
+			throw new IllegalArgumentException("Multiplier can't be less than 1, got " + multiplier);
+		}
+
+		if (jitter < 0 || jitter > 1) {
+			throw new IllegalArgumentException("Jitter must be between 0 and 1, got " + jitter);
+		}
+
+		this.baseDelayMs = baseDelayMs;
+		this.maxDelayMs = maxDelayMs;
+		this.multiplier = multiplier;
+		this.jitter = jitter;
+		this.currentDelayMs = baseDelayMs;
+	}
+
+	@Override
+	public long nextDelay(@NonNull final Outcome outcome) {
+		if (outcome == Outcome.CHANGED) {
+			currentDelayMs = baseDelayMs;
+		} else {
+			currentDelayMs = Math.min(maxDelayMs, (long) (currentDelayMs * multiplier));
+		}
+
+		// Spread uniformly over [delay * (1 - jitter), delay * (1 + jitter)], never past the max delay
+		final double spread = (random.nextDouble() * 2 - 1) * jitter;
+		return Math.max(1, Math.min(maxDelayMs, Math.round(currentDelayMs * (1 + spread))));
+	}
+
+	@Override
+	public void reset() {
+		currentDelayMs = baseDelayMs;
+	}
+
+	@Override
+	public String toString() {
+		return "BackoffPollingPolicy{ baseDelayMs=" + baseDelayMs
+				+ ", maxDelayMs=" + maxDelayMs
+				+ ", multiplier=" + multiplier
+				+ ", jitter=" + jitter
+				+ ", currentDelayMs=" + currentDelayMs
+				+ " }";
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.loader;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Decides how long a {@link RequestLoader} waits before refreshing its data again,
+ * based on the outcome of the latest request.
+ */
+public interface PollingPolicy {
+	/**
+	 * The outcome of a request.
+	 */
+	enum Outcome {
+		/**
+		 * The response differs from the previous one.
+		 */
+		CHANGED,
+
+		/**
+		 * The response is the same as the previous one (or a 304 Not Modified).
+		 */
+		UNCHANGED,
+
+		/**
+		 * The request failed.
+		 */
+		ERROR
+	}
+
+	/**
+	 * Computes the delay before the next request.
+	 *
+	 * @param outcome The outcome of the latest request.
+	 * @return The delay in milliseconds, or a value less or equal to 0 to stop polling.
+	 */
+	long nextDelay(@NonNull Outcome outcome);
+
+	/**
+	 * Resets the policy to its initial state. Called whenever the loader starts loading.
+	 */
+	void reset();
+}
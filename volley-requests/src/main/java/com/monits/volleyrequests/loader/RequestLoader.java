@@ -18,12 +18,22 @@ package com.monits.volleyrequests.loader;
 import android.content.Context;
 import android.os.Handler;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.content.Loader;
 
+import com.android.volley.Cache;
+import com.android.volley.NetworkResponse;
 import com.android.volley.Request;
 import com.android.volley.RequestDecorator;
 import com.android.volley.RequestQueue;
 import com.android.volley.Response;
+import com.android.volley.VolleyError;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -36,10 +46,22 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
  * the {@link #request} only when its starts loading and not refreshing the data
  * periodically.
  *
+ * In {@link #setStaleWhileRevalidate(boolean) stale-while-revalidate} mode, any cached response
+ * is delivered right away, even if expired, and revalidated responses are only delivered if they
+ * actually changed, avoiding needless rebinds.
+ *
+ * A {@link PollingPolicy} may be set instead of a fixed {@link #updateThrottle}, so the delay
+ * between refreshes adapts to whether the data changes or requests fail.
+ *
+ * Refreshes never pile up: while a request is in flight, it's reused instead of being canceled
+ * and sent again, unless a reload is explicitly forced.
+ *
  * @param <D> The result returned when the load is complete.
  */
 
 public class RequestLoader<D> extends Loader<D> {
+	private static final String ETAG = "ETag";
+
 	private final Request<D> request;
 	private final RequestQueue queue;
 	private final RequestSender sender;
@@ -48,35 +70,41 @@ public class RequestLoader<D> extends Loader<D> {
 	private final Handler handler;
 
 	private long updateThrottle;
+	private boolean staleWhileRevalidate;
+	private PollingPolicy pollingPolicy;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+			justification = "Doesn't provide particular information")
+	private String lastFingerprint;
 	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
 			justification = "Doesn't provide particular information")
-	private Request<D> dispatchedRequest;
+	private RequestPreservingDecorator dispatchedRequest;
+	private int dispatchCount;
+	private int suppressedDispatchCount;
 
 	/**
 	 * A {@link RequestDecorator} that preserves the {@link #request} internal
 	 * state, so that it remains unspoilt for periodic use.
-	 *
-	 * @param <T> The {@link #request}'s returned data.
 	 */
 
 	@SuppressFBWarnings(value = "MISSING_TO_STRING_OVERRIDE",
 			justification = "Unnecessary to implement toString for a private inner class")
-	private static class RequestPreservingDecorator<T> extends RequestDecorator<T> {
-		private final Response.Listener<T> listener;
+	private final class RequestPreservingDecorator extends RequestDecorator<D> {
+		// The fingerprint of each successfully parsed response, in the order they are delivered
+		private final Queue<Fingerprint> fingerprints = new ConcurrentLinkedQueue<>();
 
+		// Volley may deliver twice (a soft-expired response and its refresh), only the latest one counts
+		private volatile PollingPolicy.Outcome latestOutcome;
 		private boolean hadResponseDelivered;
 		private boolean cancelled;
+		private volatile boolean finished;
 
 		/**
 		 * Creates a new RequestPreservingDecorator instance.
 		 *
 		 * @param request The decorator's wrapped request.
-		 * @param listener The listener that receives the request's response.
 		 */
-		public RequestPreservingDecorator(@NonNull final Request<T> request,
-				@NonNull final Response.Listener<T> listener) {
+		public RequestPreservingDecorator(@NonNull final Request<D> request) {
 			super(request);
-			this.listener = listener;
 		}
 		/*The decorator does not pass markDelivered(), hasHadResponseDelivered(),
 		cancel(), isCanceled() and deliverResponse(T) to the wrapped request,
@@ -103,8 +131,91 @@ public class RequestLoader<D> extends Loader<D> {
 		}
 
 		@Override
-		protected void deliverResponse(final T response) {
-			listener.onResponse(response);
+		protected void onFinish() {
+			finished = true;
+
+			final PollingPolicy.Outcome outcome = latestOutcome;
+			if (outcome == null) {
+				return;
+			}
+
+			// Volley may finish requests off the main thread, such as when a refresh is not modified
+			handler.post(new Runnable() {
+				@Override
+				public void run() {
+					if (!isCanceled()) {
+						scheduleNextPoll(outcome);
+					}
+				}
+			});
+		}
+
+		/**
+		 * Checks if the request is still on its way, so there is no need to send it again.
+		 *
+		 * @return True if the queue is not done with it yet, and it has not been canceled.
+		 */
+		public boolean isInFlight() {
+			return !finished && !cancelled;
+		}
+
+		@Override
+		public Request<?> setCacheEntry(final Cache.Entry entry) {
+			// Volley goes straight to the network for expired entries, deliver them while it answers
+			if (staleWhileRevalidate && entry != null && entry.isExpired()) {
+				deliverStale(entry);
+			}
+
+			return super.setCacheEntry(entry);
+		}
+
+		private void deliverStale(@NonNull final Cache.Entry entry) {
+			final Response<D> stale = parseNetworkResponse(new NetworkResponse(entry.data,
+					entry.responseHeaders));
+			if (!stale.isSuccess()) {
+				return;
+			}
+
+			addMarker("stale-delivery");
+			handler.post(new Runnable() {
+				@Override
+				public void run() {
+					if (!isCanceled()) {
+						deliverResponse(stale.result);
+					}
+				}
+			});
+		}
+
+		@Override
+		protected Response<D> parseNetworkResponse(final NetworkResponse response) {
+			final Response<D> parsed = super.parseNetworkResponse(response);
+			if ((staleWhileRevalidate || pollingPolicy != null) && parsed.isSuccess()) {
+				fingerprints.add(new Fingerprint(response));
+			}
+
+			return parsed;
+		}
+
+		@Override
+		public void deliverError(final VolleyError error) {
+			latestOutcome = PollingPolicy.Outcome.ERROR;
+			super.deliverError(error);
+		}
+
+		@Override
+		protected void deliverResponse(final D response) {
+			// Only recorded once delivered, a canceled response must not hide the next identical one
+			final Fingerprint fingerprint = fingerprints.poll();
+			final boolean unchanged = fingerprint != null && !hasChanged(fingerprint);
+			latestOutcome = unchanged ? PollingPolicy.Outcome.UNCHANGED : PollingPolicy.Outcome.CHANGED;
+
+			if (unchanged && staleWhileRevalidate) {
+				addMarker("unchanged-discarded");
+				return;
+			}
+
+			deliverResult(response);
 		/*Since using listeners on the Loader is optional, let the
 		request listener work too. */
 			super.deliverResponse(response);
@@ -140,27 +251,114 @@ public class RequestLoader<D> extends Loader<D> {
 	}
 
 	/**
-	 * Creates a new {@link #dispatchedRequest}, sets a schedule and inserts it in the
-	 * request queue. It will cancel any previous request and load a new one.
+	 * Sets a policy deciding the delay before each refresh, based on the outcome of the previous
+	 * request. The delay is counted from the moment the request is done, rather than from the moment
+	 * the request is sent, as is the case for the {@link #updateThrottle}, which is ignored.
+	 *
+	 * @param pollingPolicy The policy to be used, or null to go back to the {@link #updateThrottle}.
 	 */
-	private void sendRequest() {
-		if (dispatchedRequest != null) {
-			dispatchedRequest.cancel();
+	public void setPollingPolicy(@Nullable final PollingPolicy pollingPolicy) {
+		this.pollingPolicy = pollingPolicy;
+	}
+
+	private void scheduleNextPoll(@NonNull final PollingPolicy.Outcome outcome) {
+		if (pollingPolicy == null || !isStarted()) {
+			return;
+		}
+
+		// Never keep more than one refresh pending
+		handler.removeCallbacks(sender);
+
+		final long delay = pollingPolicy.nextDelay(outcome);
+		if (delay > 0L) {
+			handler.postDelayed(sender, delay);
 		}
-		dispatchedRequest = new RequestPreservingDecorator<>(request, new Response.Listener<D>() {
-			@Override
-			public void onResponse(@NonNull final D response) {
-				deliverResult(response);
+	}
+
+	/**
+	 * Sets whether cached responses are delivered right away, even if expired, while they
+	 * are revalidated, delivering the revalidated response only if it actually changed.
+	 * Changes are detected through the ETag, or a hash of the response when there is none.
+	 *
+	 * @param staleWhileRevalidate True to enable stale-while-revalidate mode, false otherwise.
+	 */
+	public void setStaleWhileRevalidate(final boolean staleWhileRevalidate) {
+		this.staleWhileRevalidate = staleWhileRevalidate;
+	}
+
+	/**
+	 * Checks if a delivered response differs from the latest one, and records it as the latest.
+	 *
+	 * @param fingerprint The fingerprint of the delivered response.
+	 * @return True if the response changed, or there was none before.
+	 */
+	private boolean hasChanged(@NonNull final Fingerprint fingerprint) {
+		if (fingerprint.notModified && lastFingerprint != null) {
+			return false;
+		}
+
+		final boolean changed = !fingerprint.value.equals(lastFingerprint);
+		lastFingerprint = fingerprint.value;
+
+		return changed;
+	}
+
+	@NonNull
+	private static String hash(@Nullable final byte[] data) {
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			if (data != null) {
+				digest.update(data);
 			}
-		});
-		if (updateThrottle > 0L) {
+			return new BigInteger(1, digest.digest()).toString(Character.MAX_RADIX);
+		} catch (final NoSuchAlgorithmException e) {
+			throw new AssertionError("SHA-1 is not supported");
+		}
+	}
+
+	/**
+	 * Retrieves how many times the request was actually added to the queue.
+	 *
+	 * @return The amount of dispatched requests.
+	 */
+	public int getDispatchCount() {
+		return dispatchCount;
+	}
+
+	/**
+	 * Retrieves how many times the request was not sent again, since it was still in flight.
+	 *
+	 * @return The amount of suppressed dispatches.
+	 */
+	public int getSuppressedDispatchCount() {
+		return suppressedDispatchCount;
+	}
+
+	/**
+	 * Creates a new {@link #dispatchedRequest}, sets a schedule and inserts it in the
+	 * request queue. If the previous request is still in flight, it's reused instead.
+	 */
+	private void sendRequest() {
+		if (pollingPolicy == null && updateThrottle > 0L) {
 			handler.postDelayed(sender, updateThrottle);
 		}
+
+		if (dispatchedRequest != null && dispatchedRequest.isInFlight()) {
+			// It will return the very same data, no need to cancel it and start over
+			suppressedDispatchCount++;
+			return;
+		}
+
+		dispatchedRequest = new RequestPreservingDecorator(request);
+		dispatchCount++;
 		queue.add(dispatchedRequest);
 	}
 
 	@Override
 	protected void onStartLoading() {
+		if (pollingPolicy != null) {
+			pollingPolicy.reset();
+		}
 		sendRequest();
 	}
 
@@ -178,6 +376,11 @@ public class RequestLoader<D> extends Loader<D> {
 	@Override
 	protected void onForceLoad() {
 		super.onForceLoad();
+
+		// An explicit reload supersedes any request in flight
+		if (dispatchedRequest != null) {
+			dispatchedRequest.cancel();
+		}
 		startLoading();
 	}
 
@@ -188,10 +391,28 @@ public class RequestLoader<D> extends Loader<D> {
 	@Override
 	protected void onReset() {
 		dispatchedRequest = null;
+		lastFingerprint = null;
 		handler.removeCallbacks(sender);
 		super.onReset();
 	}
 
+	/**
+	 * Identifies the contents of a response, through its ETag, or a hash of it when there is none.
+	 * Computed while parsing, off the main thread.
+	 */
+	@SuppressFBWarnings(value = "MISSING_TO_STRING_OVERRIDE",
+			justification = "Unnecessary to implement toString for a private inner class")
+	private static final class Fingerprint {
+		private final String value;
+		private final boolean notModified;
+
+		/*package*/ Fingerprint(@NonNull final NetworkResponse response) {
+			final String etag = response.headers == null ? null : response.headers.get(ETAG);
+			this.value = etag == null ? hash(response.data) : etag;
+			this.notModified = response.notModified;
+		}
+	}
+
 	/**
 	 * {@link Runnable} that periodically sends a {@link #dispatchedRequest}.
 	 */
@@ -204,6 +425,10 @@ public class RequestLoader<D> extends Loader<D> {
 
 	@Override
 	public String toString() {
-		return "RequestLoader for " + request + " with updateThrottle = " + updateThrottle;
+		return "RequestLoader for " + request + " with updateThrottle = " + updateThrottle
+			+ ", staleWhileRevalidate = " + staleWhileRevalidate
+			+ ", pollingPolicy = " + pollingPolicy
+			+ ", dispatchCount = " + dispatchCount
+			+ ", suppressedDispatchCount = " + suppressedDispatchCount;
 	}
 }
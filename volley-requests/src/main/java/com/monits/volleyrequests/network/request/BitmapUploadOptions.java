@@ -0,0 +1,129 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.CompressFormat;
+import android.support.annotation.NonNull;
+
+/**
+ * Options on how to encode a {@link Bitmap} for {@link UploadBitmapRfcCompliantListenableRequest}.
+ *
+ * Images are always uploaded without metadata, since {@link Bitmap#compress(CompressFormat, int,
+ * java.io.OutputStream)} never writes any (EXIF tags included).
+ */
+public class BitmapUploadOptions {
+	/**
+	 * Use to upload images without downscaling them.
+	 */
+	public static final int NO_MAX_DIMENSION = 0;
+
+	private static final int MAX_QUALITY = 100;
+
+	/**
+	 * The options used by default, JPEG at full quality and size.
+	 */
+	public static final BitmapUploadOptions DEFAULT = new BitmapUploadOptions(CompressFormat.JPEG,
+			MAX_QUALITY, NO_MAX_DIMENSION);
+
+	private final CompressFormat format;
+	private final int quality;
+	private final int maxDimension;
+
+	/**
+	 * Creates a new BitmapUploadOptions instance.
+	 *
+	 * @param format The format in which to compress the image.
+	 * @param quality The compression quality, from 0 to 100. Ignored by lossless formats such as PNG.
+	 * @param maxDimension The maximum width / height of the uploaded image, in pixels. Larger images
+	 *                     are downscaled keeping their aspect ratio. Use {@link #NO_MAX_DIMENSION}
+	 *                     to upload images in their original size.
+	 */
+	public BitmapUploadOptions(@NonNull final CompressFormat format, final int quality,
+			final int maxDimension) {
+		if (quality < 0 || quality > MAX_QUALITY) {
+			throw new IllegalArgumentException("Quality must be between 0 and 100, got " + quality);
+		}
+
+		if (maxDimension < 0) {
+			throw new IllegalArgumentException("Max dimension can't be negative, got " + maxDimension);
+		}
+
+		this.format = format;
+		this.quality = quality;
+		this.maxDimension = maxDimension;
+	}
+
+	@NonNull
+	public CompressFormat getFormat() {
+		return format;
+	}
+
+	public int getQuality() {
+		return quality;
+	}
+
+	public int getMaxDimension() {
+		return maxDimension;
+	}
+
+	/**
+	 * Retrieves the MIME type of images encoded with these options.
+	 *
+	 * @return The MIME type for the configured format.
+	 */
+	@NonNull
+	public String getMimeType() {
+		if (format == CompressFormat.JPEG) {
+			return "image/jpeg";
+		}
+
+		if (format == CompressFormat.PNG) {
+			return "image/png";
+		}
+
+		return "image/webp";
+	}
+
+	/**
+	 * Downscales the given bitmap to fit within the max dimension, keeping its aspect ratio.
+	 *
+	 * @param bitmap The bitmap to be scaled.
+	 * @return The scaled bitmap, or the very same instance if no scaling is needed.
+	 */
+	@NonNull
+	public Bitmap scale(@NonNull final Bitmap bitmap) {
+		final int width = bitmap.getWidth();
+		final int height = bitmap.getHeight();
+		final int largest = Math.max(width, height);
+
+		if (maxDimension == NO_MAX_DIMENSION || largest <= maxDimension) {
+			return bitmap;
+		}
+
+		final float ratio = (float) maxDimension / largest;
+		return Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(width * ratio)),
+				Math.max(1, Math.round(height * ratio)), true);
+	}
+
+	@Override
+	public String toString() {
+		return "BitmapUploadOptions{ format=" + format
+				+ ", quality=" + quality
+				+ ", maxDimension=" + maxDimension
+				+ " }";
+	}
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import android.support.annotation.NonNull;
+
+import java.util.Map;
+
+/**
+ * Decides the key under which a {@link RfcCompliantListenableRequest}'s response is cached.
+ *
+ * By default Volley keys responses by url alone. A strategy may add request headers the
+ * response varies on, such as Accept-Language, so different variants don't overwrite each other.
+ * Volatile headers, such as auth tokens or tracing ids, must be left out, or no request would
+ * ever hit the cache.
+ *
+ * Urls invalidated by unsafe requests are keyed through the same strategy,
+ * with the headers of the invalidating request.
+ */
+public interface CacheKeyStrategy {
+	/**
+	 * Retrieves the cache key for a request.
+	 *
+	 * @param url The url of the request.
+	 * @param headers The headers of the request.
+	 * @return The cache key, which must be the same for the same url and relevant headers.
+	 */
+	@NonNull
+	String getCacheKey(@NonNull String url, @NonNull Map<String, String> headers);
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import com.android.volley.VolleyError;
+
+/**
+ * Delivered to {@link CachePolicy#CACHE_ONLY} requests for which there is no cached response.
+ */
+public class CacheMissError extends VolleyError {
+
+	/**
+	 * Creates a new CacheMissError instance.
+	 *
+	 * @param message The detail message.
+	 */
+	public CacheMissError(final String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+/**
+ * How a {@link RfcCompliantListenableRequest} makes use of the cache.
+ *
+ * Only GET / HEAD requests are ever served from cache, any other method always hits the network.
+ * Stale responses are always revalidated with a conditional request (If-None-Match /
+ * If-Modified-Since), so an unchanged resource costs just a 304 Not Modified.
+ */
+public enum CachePolicy {
+	/**
+	 * Serves fresh cached responses, revalidating stale ones. This is Volley's own behavior.
+	 */
+	CACHE_FIRST,
+
+	/**
+	 * Always asks the server, revalidating the cached response if any, and caches the new one.
+	 */
+	NETWORK_ONLY,
+
+	/**
+	 * Serves cached responses past their expiration. Once expired, the cached response is delivered
+	 * right away, and the revalidated one afterwards. Only applies to the request reading the entry,
+	 * which is stored as the server says, so other requests for it still see it expire.
+	 */
+	STALE_WHILE_REVALIDATE,
+
+	/**
+	 * Only serves cached responses, never hitting the network. Expired responses are served as well.
+	 * If there is none, the request fails with a {@link CacheMissError}.
+	 */
+	CACHE_ONLY
+}
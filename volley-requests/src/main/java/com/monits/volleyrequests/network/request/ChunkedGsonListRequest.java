@@ -0,0 +1,195 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Response;
+import com.android.volley.Response.ErrorListener;
+import com.android.volley.Response.Listener;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * A {@link GsonRequest} for collections that parses the array element by element,
+ * handing the elements over to a {@link ChunkListener} in batches.
+ *
+ * Chunks go through Volley's delivery along with the response, right before the success
+ * listener receives the full list, so a malformed response never produces any chunk.
+ * Only the first response delivered is chunked; a refresh of a response already
+ * delivered (such as a soft-expired cache hit) only reaches the success listener.
+ *
+ * To parse collections wrapped in an envelope, decorate this request with a
+ * {@link com.android.volley.JSONArrayRequestDecorator}.
+ *
+ * @param <T> The type of the elements in the collection.
+ */
+public class ChunkedGsonListRequest<T> extends GsonRequest<List<T>> {
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "No need to use in the toString")
+	private final Gson gson;
+	private final Type elementType;
+	private final int chunkSize;
+	private final ChunkListener<T> chunkListener;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "No need to use in the toString")
+	private boolean chunksDelivered;
+
+	/**
+	 * Creates a new ChunkedGsonListRequest instance
+	 *
+	 * @param method The request method, {@see Method}
+	 * @param url The url to be requested.
+	 * @param gson The gson instance to parse the response
+	 * @param elementType The {@link Type} of the elements in the collection, that is T
+	 * @param chunkSize The amount of elements in each chunk.
+	 * @param chunkListener The listener for chunks.
+	 * @param listener The listener for success, receiving the full list.
+	 * @param errListener The listener for errors.
+	 * @param cancelListener The listener for cancel.
+	 * @param body The object to be sent as json in the request's body.
+	 */
+	public ChunkedGsonListRequest(final int method, @NonNull final String url, @NonNull final Gson gson,
+					@NonNull final Type elementType, final int chunkSize,
+					@NonNull final ChunkListener<T> chunkListener,
+					@Nullable final Listener<List<T>> listener,
+					@Nullable final ErrorListener errListener,
+					@Nullable final CancelListener cancelListener,
+					@Nullable final Object body) {
+		super(method, url, gson, ContainerTypes.listOf(elementType), listener, errListener, cancelListener, body);
+
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive, got " + chunkSize);
+		}
+
+		this.gson = gson;
+		this.elementType = elementType;
+		this.chunkSize = chunkSize;
+		this.chunkListener = chunkListener;
+	}
+
+	@Override
+	protected Response<List<T>> parseResponse(@NonNull final NetworkResponse networkResponse) {
+		final NetworkResponse response = mergeNotModified(networkResponse);
+		try {
+			final JsonReader reader = new JsonReader(new InputStreamReader(
+					new ByteArrayInputStream(response.data),
+					HttpHeaderParser.parseCharset(response.headers)));
+			final Response<List<T>> elements = parseJson(reader, response);
+
+			if (elements.isSuccess() && reader.peek() != JsonToken.END_DOCUMENT) {
+				return Response.error(new ParseError(new JsonSyntaxException(
+						"JSON document was not fully consumed.")));
+			}
+
+			return elements;
+		} catch (final UnsupportedEncodingException e) {
+			return Response.error(new ParseError(e));
+		} catch (final IOException e) {
+			return Response.error(new ParseError(e));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@NonNull
+	@Override
+	public Response<List<T>> parseJson(@NonNull final JsonReader reader,
+			@NonNull final NetworkResponse response) {
+		try {
+			// Look up the adapter once, rather than once per element
+			final TypeAdapter<T> adapter = (TypeAdapter<T>) gson.getAdapter(TypeToken.get(elementType));
+			final boolean lenient = reader.isLenient();
+			final List<T> elements = new ArrayList<>();
+
+			reader.beginArray();
+			while (reader.hasNext()) {
+				// Elements are parsed leniently, just as Gson.fromJson does
+				reader.setLenient(true);
+				final T element = adapter.read(reader);
+				reader.setLenient(lenient);
+
+				elements.add(element);
+			}
+			reader.endArray();
+
+			return Response.success(elements, parseCacheHeaders(response));
+		} catch (final IOException | IllegalStateException | JsonParseException e) {
+			// Malformed json, or a value that is not an array
+			return Response.error(new ParseError(e));
+		}
+	}
+
+	@Override
+	protected void deliverResponse(final List<T> elements) {
+		// Refreshes of an already delivered response would repeat the same elements
+		if (!chunksDelivered && elements != null) {
+			chunksDelivered = true;
+
+			for (int start = 0; start < elements.size() && !isCanceled(); start += chunkSize) {
+				final int end = Math.min(start + chunkSize, elements.size());
+				chunkListener.onChunk(new ArrayList<>(elements.subList(start, end)));
+			}
+		}
+
+		super.deliverResponse(elements);
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	@Override
+	public String toString() {
+		return "ChunkedGsonListRequest{ elementType=" + elementType
+			+ ", chunkSize=" + chunkSize
+			+ ", chunkListener=" + chunkListener
+			+ " } " + super.toString();
+	}
+
+	/**
+	 * Interface that defines the chunk listener for {@link ChunkedGsonListRequest}
+	 *
+	 * @param <T> The type of the elements in the collection.
+	 */
+	public interface ChunkListener<T> {
+		/**
+		 * Receives a batch of parsed elements, in the order they appear in the response.
+		 * Called on the delivery thread, right before the success listener.
+		 *
+		 * @param chunk The elements following those of the previous chunk.
+		 */
+		void onChunk(@NonNull List<T> chunk);
+	}
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.reflect.TypeParameter;
+import com.google.common.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves generic container types, such as <code>List&lt;User&gt;</code>, for a given element type.
+ *
+ * Resolving them takes anonymous classes, reflection and type resolution, so they are resolved
+ * once per element type and shared from then on. Resolved types are immutable, and safe to be
+ * used from any thread.
+ */
+public final class ContainerTypes {
+	private static final ConcurrentMap<Type, Type> LIST_TYPES = new ConcurrentHashMap<>();
+
+	private ContainerTypes() {
+		throw new AssertionError("Can't instantiate this class");
+	}
+
+	/**
+	 * Retrieves the type of a list of the given elements.
+	 *
+	 * @param elementType The type of the elements in the list.
+	 * @return The type <code>List&lt;elementType&gt;</code>.
+	 */
+	@NonNull
+	public static Type listOf(@NonNull final Type elementType) {
+		final Type cached = LIST_TYPES.get(elementType);
+		if (cached != null) {
+			return cached;
+		}
+
+		// Racing threads resolve the same type, any of them will do
+		final Type listType = resolveListOf(elementType);
+		final Type previous = LIST_TYPES.putIfAbsent(elementType, listType);
+		return previous == null ? listType : previous;
+	}
+
+	@SuppressWarnings("unchecked")
+	@NonNull
+	private static <E> Type resolveListOf(@NonNull final Type elementType) {
+		return new TypeToken<List<E>>() { }
+				.where(new TypeParameter<E>() {
+				}, (TypeToken<E>) TypeToken.of(elementType)).getType();
+	}
+}
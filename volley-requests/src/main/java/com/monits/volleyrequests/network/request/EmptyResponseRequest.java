@@ -22,7 +22,7 @@ import com.android.volley.NetworkResponse;
 import com.android.volley.Response;
 import com.android.volley.Response.ErrorListener;
 import com.android.volley.Response.Listener;
-import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.Gson;
 
 /**
  * A JSON request whose response is empty, for which we only care about it's status code.
@@ -47,6 +47,26 @@ public class EmptyResponseRequest extends JsonRfcCompliantListenableRequest<Void
 		super(method, url, listener, errListener, cancelListener, jsonBody);
 	}
 
+	/**
+	 * Creates a new EmptyResponseRequest instance, whose body is the given object
+	 * serialized with gson, {@see JsonRfcCompliantListenableRequest}.
+	 *
+	 * @param method The request method, {@see Method}
+	 * @param url The url to be requested.
+	 * @param listener The listener for success.
+	 * @param errListener The listener for errors.
+	 * @param cancelListener The listener for cancel.
+	 * @param gson The gson instance to serialize the body.
+	 * @param body The object to be sent as json in the request's body.
+	 */
+	public EmptyResponseRequest(final int method, @NonNull final String url,
+						@Nullable final Listener<Void> listener,
+						@Nullable final ErrorListener errListener,
+						@Nullable final CancelListener cancelListener,
+						@NonNull final Gson gson, @Nullable final Object body) {
+		super(method, url, listener, errListener, cancelListener, gson, body);
+	}
+
 	/**
 	 * Creates a new EmptyResponseRequest instance with less parameters
 	 * for backwards compatibility.
@@ -65,7 +85,7 @@ public class EmptyResponseRequest extends JsonRfcCompliantListenableRequest<Void
 	}
 
 	@Override
-	protected Response<Void> parseNetworkResponse(final NetworkResponse response) {
-		return Response.success(null, HttpHeaderParser.parseCacheHeaders(response));
+	protected Response<Void> parseResponse(@NonNull final NetworkResponse response) {
+		return Response.success(null, parseCacheHeaders(response));
 	}
 }
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Response;
+import com.android.volley.Response.ErrorListener;
+import com.android.volley.Response.Listener;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * A {@link GsonRequest} for collections wrapped in a JSON envelope, such as
+ * <pre>{ "elements": [ ... ], "total": 42, "next": "cursor" }</pre>
+ *
+ * The envelope is unwrapped while deserializing, in a single pass over the response.
+ * The remaining fields of the envelope are not discarded, but handed over to a
+ * {@link MetadataListener}, if one is set.
+ *
+ * @param <T> The type of the elements in the collection.
+ */
+public class GsonEnvelopeRequest<T> extends GsonRequest<List<T>> {
+	private final String elementsKey;
+	private MetadataListener metadataListener;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "Transient parsing state, no need to use in the toString")
+	private volatile JsonObject metadata;
+
+	/**
+	 * Creates a new GsonEnvelopeRequest instance
+	 *
+	 * @param method The request method, {@see Method}
+	 * @param url The url to be requested.
+	 * @param gson The gson instance to parse the response
+	 * @param type The {@link Type} of the list of elements, that is List&lt;T&gt;
+	 * @param elementsKey The key in the envelope under which the elements reside.
+	 * @param listener The listener for success.
+	 * @param errListener The listener for errors.
+	 * @param cancelListener The listener for cancel.
+	 * @param body The object to be sent as json in the request's body.
+	 */
+	public GsonEnvelopeRequest(final int method, @NonNull final String url, @NonNull final Gson gson,
+					@NonNull final Type type, @NonNull final String elementsKey,
+					@Nullable final Listener<List<T>> listener,
+					@Nullable final ErrorListener errListener,
+					@Nullable final CancelListener cancelListener,
+					@Nullable final Object body) {
+		super(method, url, gson, type, listener, errListener, cancelListener, body);
+		this.elementsKey = elementsKey;
+	}
+
+	/**
+	 * Sets a listener to receive the envelope's fields other than the elements.
+	 *
+	 * Metadata is only collected when a listener is set, otherwise parsing stops
+	 * as soon as the elements have been read.
+	 *
+	 * @param metadataListener The listener to be used, or null to remove it.
+	 */
+	public void setMetadataListener(@Nullable final MetadataListener metadataListener) {
+		this.metadataListener = metadataListener;
+	}
+
+	@Override
+	protected Response<List<T>> parseResponse(@NonNull final NetworkResponse networkResponse) {
+		final NetworkResponse response = mergeNotModified(networkResponse);
+		try {
+			final JsonReader reader = new JsonReader(new InputStreamReader(
+					new ByteArrayInputStream(response.data),
+					HttpHeaderParser.parseCharset(response.headers)));
+			final boolean collectMetadata = metadataListener != null;
+			final JsonObject envelope = new JsonObject();
+			final JsonParser parser = new JsonParser();
+			Response<List<T>> elements = null;
+
+			reader.beginObject();
+			while (reader.hasNext()) {
+				final String name = reader.nextName();
+				if (elements == null && elementsKey.equals(name)) {
+					if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+						return Response.error(new ParseError(new JsonParseException(
+								"Value at " + elementsKey + " is not an array")));
+					}
+
+					elements = parseJson(reader, response);
+					if (!collectMetadata || !elements.isSuccess()) {
+						return elements;
+					}
+				} else if (collectMetadata) {
+					envelope.add(name, parser.parse(reader));
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+
+			if (elements == null) {
+				return Response.error(new ParseError(new JsonParseException("No value for " + elementsKey)));
+			}
+
+			metadata = envelope;
+			return elements;
+		} catch (final UnsupportedEncodingException e) {
+			return Response.error(new ParseError(e));
+		} catch (final IOException | IllegalStateException | JsonParseException e) {
+			// Malformed json, or an envelope that is not an object
+			return Response.error(new ParseError(e));
+		}
+	}
+
+	@Override
+	protected void deliverResponse(final List<T> ret) {
+		final MetadataListener listener = metadataListener;
+		if (listener != null && metadata != null) {
+			listener.onMetadata(metadata);
+		}
+
+		super.deliverResponse(ret);
+	}
+
+	@NonNull
+	public String getElementsKey() {
+		return elementsKey;
+	}
+
+	@Override
+	public String toString() {
+		return "GsonEnvelopeRequest{ elementsKey='" + elementsKey + '\''
+			+ ", metadataListener=" + metadataListener
+			+ " } " + super.toString();
+	}
+
+	/**
+	 * Interface that defines the metadata listener for {@link GsonEnvelopeRequest}
+	 */
+	public interface MetadataListener {
+		/**
+		 * Receives the envelope's fields other than the elements, such as paging cursors
+		 * or totals. Called on the main thread, right before the success listener.
+		 *
+		 * @param metadata The envelope, without the elements.
+		 */
+		void onMetadata(@NonNull JsonObject metadata);
+	}
+}
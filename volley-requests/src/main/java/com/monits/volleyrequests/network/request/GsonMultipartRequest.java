@@ -0,0 +1,91 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.Response.ErrorListener;
+import com.android.volley.Response.Listener;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * A {@link GsonRequest} that submits a {@link MultipartBody}, such as several files along with
+ * their json metadata, in a single request.
+ *
+ * Volley needs the whole body in memory, so it's written once, on the network dispatcher thread,
+ * to an array of the exact size of the body, and reused should the request be retried.
+ * Should any part fail to be read, the request fails with a {@link com.android.volley.VolleyError}.
+ *
+ * @param <T> The type of the response.
+ */
+public class GsonMultipartRequest<T> extends GsonRequest<T> {
+	private final MultipartBody multipartBody;
+
+	/**
+	 * Creates a new GsonMultipartRequest instance
+	 *
+	 * @param method The request method, {@see Method}
+	 * @param url The url to be requested.
+	 * @param gson The gson instance to parse the response
+	 * @param clazz The {@link Type} of the class T
+	 * @param listener The listener for success.
+	 * @param errListener The listener for errors.
+	 * @param cancelListener The listener for cancel.
+	 * @param body The multipart body to be sent.
+	 */
+	@SuppressWarnings("checkstyle:magicnumber")
+	public GsonMultipartRequest(final int method, @NonNull final String url, @NonNull final Gson gson,
+					@NonNull final Type clazz, @Nullable final Listener<T> listener,
+					@Nullable final ErrorListener errListener,
+					@Nullable final CancelListener cancelListener,
+					@NonNull final MultipartBody body) {
+		super(method, url, gson, clazz, listener, errListener, cancelListener, (Object) null);
+		this.multipartBody = body;
+
+		/*
+		 * Default Volley timeout is too low for most uploads in slow networks.
+		 * 30 secs timeout, 1 reattempt, 45 secs timeout for the second attempt
+		 */
+		setRetryPolicy(new DefaultRetryPolicy(30000, 1, 1.5f));
+	}
+
+	@Override
+	public String getBodyContentType() {
+		return multipartBody.getContentType();
+	}
+
+	@NonNull
+	@Override
+	protected byte[] encodeBody() {
+		try {
+			return multipartBody.toByteArray();
+		} catch (final IOException e) {
+			// The network dispatcher delivers any exception as a VolleyError
+			throw new IllegalStateException("Could not write multipart body of " + this, e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "GsonMultipartRequest{ multipartBody=" + multipartBody
+			+ " } " + super.toString();
+	}
+}
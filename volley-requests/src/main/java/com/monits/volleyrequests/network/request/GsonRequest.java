@@ -18,6 +18,8 @@ package com.monits.volleyrequests.network.request;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.android.volley.Cache;
+import com.android.volley.JsonReaderParser;
 import com.android.volley.NetworkResponse;
 import com.android.volley.ParseError;
 import com.android.volley.Response;
@@ -25,18 +27,27 @@ import com.android.volley.Response.ErrorListener;
 import com.android.volley.Response.Listener;
 import com.android.volley.toolbox.HttpHeaderParser;
 import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
-public class GsonRequest<T> extends JsonRfcCompliantListenableRequest<T> {
+public class GsonRequest<T> extends JsonRfcCompliantListenableRequest<T>
+		implements JsonReaderParser<T> {
 	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
 		justification = "No need to use in the toString")
 	private final Gson gson;
 	private final Type clazz;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "No need to use in the toString")
+	private ParsedResponseCache parsedResponseCache;
 
 	/**
 	 * Creates a new GsonRequest instance
@@ -49,8 +60,10 @@ public class GsonRequest<T> extends JsonRfcCompliantListenableRequest<T> {
 	 * @param errListener The listener for errors.
 	 * @param cancelListener The listener for errors.
 	 * @param jsonBody The contents of the json to be sent in the request's body.
+	 * @deprecated Easily mistaken for the object body constructor,
+	 *             use {@link #withJsonBody(int, String, Gson, Type, Listener, ErrorListener, CancelListener, String)}
 	 */
-
+	@Deprecated
 	public GsonRequest(final int method, @NonNull final String url, @NonNull final Gson gson,
 					@NonNull final Type clazz, @Nullable final Listener<T> listener,
 					@Nullable final ErrorListener errListener,
@@ -62,6 +75,34 @@ public class GsonRequest<T> extends JsonRfcCompliantListenableRequest<T> {
 		this.clazz = clazz;
 	}
 
+	/**
+	 * Creates a new GsonRequest instance, whose body is the given object serialized with gson.
+	 *
+	 * Serialization is deferred to the network dispatcher thread,
+	 * {@see JsonRfcCompliantListenableRequest}.
+	 *
+	 * @param method The request method, {@see Method}
+	 * @param url The url to be requested.
+	 * @param gson The gson instance to parse the response, and serialize the body
+	 * @param clazz The {@link Type} of the class T
+	 * @param listener The listener for success.
+	 * @param errListener The listener for errors.
+	 * @param cancelListener The listener for cancel.
+	 * @param body The object to be sent as json in the request's body. Strings are sent as json strings,
+	 *             use {@link #withJsonBody(int, String, Gson, Type, Listener, ErrorListener, CancelListener, String)}
+	 *             to send an already serialized json.
+	 */
+	public GsonRequest(final int method, @NonNull final String url, @NonNull final Gson gson,
+					@NonNull final Type clazz, @Nullable final Listener<T> listener,
+					@Nullable final ErrorListener errListener,
+					@Nullable final CancelListener cancelListener,
+					@Nullable final Object body) {
+
+		super(method, url, listener, errListener, cancelListener, gson, body);
+		this.gson = gson;
+		this.clazz = clazz;
+	}
+
 	/**
 	 * Creates a new GsonRequest instance, with less parameters for
 	 * backwards compatibility.
@@ -73,8 +114,10 @@ public class GsonRequest<T> extends JsonRfcCompliantListenableRequest<T> {
 	 * @param listener The listener for success.
 	 * @param errListener The listener for errors.
 	 * @param jsonBody The contents of the json to be sent in the request's body.
+	 * @deprecated Easily mistaken for the object body constructor,
+	 *             use {@link #withJsonBody(int, String, Gson, Type, Listener, ErrorListener, CancelListener, String)}
 	 */
-
+	@Deprecated
 	public GsonRequest(final int method, @NonNull final String url, @NonNull final Gson gson,
 					@NonNull final Type clazz, @Nullable final Listener<T> listener,
 					@Nullable final ErrorListener errListener,
@@ -82,18 +125,94 @@ public class GsonRequest<T> extends JsonRfcCompliantListenableRequest<T> {
 		this(method, url, gson, clazz, listener, errListener, null, jsonBody);
 	}
 
+	/**
+	 * Creates a new GsonRequest instance, whose body is an already serialized json.
+	 *
+	 * @param method The request method, {@see Method}
+	 * @param url The url to be requested.
+	 * @param gson The gson instance to parse the response
+	 * @param clazz The {@link Type} of the class T
+	 * @param listener The listener for success.
+	 * @param errListener The listener for errors.
+	 * @param cancelListener The listener for cancel.
+	 * @param jsonBody The contents of the json to be sent in the request's body.
+	 * @param <T> The type of the response.
+	 * @return The created request.
+	 */
+	@NonNull
+	public static <T> GsonRequest<T> withJsonBody(final int method, @NonNull final String url,
+					@NonNull final Gson gson, @NonNull final Type clazz,
+					@Nullable final Listener<T> listener, @Nullable final ErrorListener errListener,
+					@Nullable final CancelListener cancelListener, @Nullable final String jsonBody) {
+		return new GsonRequest<>(method, url, gson, clazz, listener, errListener, cancelListener, jsonBody);
+	}
+
+	/**
+	 * Sets a cache of parsed responses, to skip deserialization when the response
+	 * was already parsed from the very same cache entry.
+	 *
+	 * @param parsedResponseCache The cache to be used, or null to always deserialize responses.
+	 */
+	public void setParsedResponseCache(@Nullable final ParsedResponseCache parsedResponseCache) {
+		this.parsedResponseCache = parsedResponseCache;
+	}
+
+	@Override
+	protected void invalidate(@NonNull final String cacheKey) {
+		super.invalidate(cacheKey);
+
+		if (parsedResponseCache != null) {
+			parsedResponseCache.invalidate(cacheKey);
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
-	protected Response<T> parseNetworkResponse(final NetworkResponse response) {
+	protected Response<T> parseResponse(@NonNull final NetworkResponse networkResponse) {
+		final NetworkResponse response = mergeNotModified(networkResponse);
+		final Cache.Entry entry = parseCacheHeaders(response);
+		final ParsedResponseCache cache = isCacheable() && entry != null ? parsedResponseCache : null;
+
+		if (cache != null) {
+			// A 304 Not Modified keeps the validators, so the already parsed object is reused
+			final Object parsed = cache.get(getCacheKey(), clazz, entry);
+			if (parsed != null) {
+				addMarker("parsed-cache-hit");
+				return Response.success((T) parsed, entry);
+			}
+		}
+
 		try {
-			final String json = new String(response.data,
+			// Decode straight from the response bytes, no need to hold a full String copy of the payload
+			final Reader reader = new InputStreamReader(new ByteArrayInputStream(response.data),
 							HttpHeaderParser.parseCharset(response.headers));
-			return Response.success((T) gson.fromJson(json, clazz),
-					HttpHeaderParser.parseCacheHeaders(response));
+			final T parsed = (T) gson.fromJson(reader, clazz);
+
+			if (cache != null && parsed != null) {
+				cache.put(getCacheKey(), clazz, entry, parsed);
+			}
+
+			return Response.success(parsed, entry);
 		} catch (final UnsupportedEncodingException e) {
 			return Response.error(new ParseError(e));
 		} catch (final JsonSyntaxException e) {
 			return Response.error(new ParseError(e));
+		} catch (final JsonIOException e) {
+			return Response.error(new ParseError(e));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@NonNull
+	@Override
+	public Response<T> parseJson(@NonNull final JsonReader reader,
+			@NonNull final NetworkResponse response) {
+		try {
+			return Response.success((T) gson.fromJson(reader, clazz), parseCacheHeaders(response));
+		} catch (final JsonSyntaxException e) {
+			return Response.error(new ParseError(e));
+		} catch (final JsonIOException e) {
+			return Response.error(new ParseError(e));
 		}
 	}
 
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A {@link CacheKeyStrategy} that adds the values of selected headers to the url.
+ *
+ * Header names are matched ignoring case, and always appended in the same order, so the key
+ * doesn't depend on the order in which headers were added. Requests carrying none of them are
+ * keyed by url alone, just as Volley does, so they share entries with requests built without
+ * a strategy. Any other header is ignored.
+ */
+public class HeaderCacheKeyStrategy implements CacheKeyStrategy {
+	// Fragments are never sent, so keys with headers can't collide with a plain url
+	private static final char SEPARATOR = '#';
+
+	private final String[] headerNames;
+
+	/**
+	 * Creates a new HeaderCacheKeyStrategy.
+	 *
+	 * @param headerNames The names of the headers to be included in the key, such as "Accept-Language".
+	 */
+	public HeaderCacheKeyStrategy(@NonNull final String... headerNames) {
+		if (headerNames.length == 0) {
+			throw new IllegalArgumentException("At least one header is required");
+		}
+
+		final String[] names = new String[headerNames.length];
+		for (int i = 0; i < headerNames.length; i++) {
+			names[i] = headerNames[i].toLowerCase(Locale.US);
+		}
+		Arrays.sort(names);
+		this.headerNames = names;
+	}
+
+	@NonNull
+	@Override
+	public String getCacheKey(@NonNull final String url, @NonNull final Map<String, String> headers) {
+		StringBuilder sb = null;
+		char separator = SEPARATOR;
+		for (final String name : headerNames) {
+			final String value = getHeader(headers, name);
+			if (value == null) {
+				continue;
+			}
+
+			if (sb == null) {
+				sb = new StringBuilder(url);
+			}
+			sb.append(separator).append(name).append('=').append(value);
+			separator = '&';
+		}
+
+		return sb == null ? url : sb.toString();
+	}
+
+	@Nullable
+	private static String getHeader(@NonNull final Map<String, String> headers, @NonNull final String name) {
+		for (final Map.Entry<String, String> header : headers.entrySet()) {
+			if (name.equalsIgnoreCase(header.getKey())) {
+				return header.getValue();
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return "HeaderCacheKeyStrategy{ headerNames=" + Arrays.toString(headerNames) + " }";
+	}
+}
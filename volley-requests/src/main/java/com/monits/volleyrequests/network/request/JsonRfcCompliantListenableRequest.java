@@ -22,7 +22,15 @@ import android.support.annotation.Nullable;
 import com.android.volley.AuthFailureError;
 import com.android.volley.Response.ErrorListener;
 import com.android.volley.Response.Listener;
+import com.android.volley.VolleyError;
+import com.android.volley.VolleyLog;
+import com.android.volley.toolbox.ByteArrayPool;
+import com.android.volley.toolbox.PoolingByteArrayOutputStream;
+import com.google.gson.Gson;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -34,12 +42,34 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 public abstract class JsonRfcCompliantListenableRequest<T> extends
 				RfcCompliantListenableRequest<T> {
 
-	private final String json;
+	/**
+	 * Charset used to encode the request's body.
+	 */
+	protected static final String PROTOCOL_CHARSET = "utf-8";
+
+	private static final String PROTOCOL_CONTENT_TYPE = "application/json; charset=" + PROTOCOL_CHARSET;
+
+	private static final int BODY_BUFFER_SIZE = 1024;
+	private static final int BODY_BUFFER_POOL_SIZE = 64 * 1024;
+
+	// Serialization buffers are shared among all requests, they are returned as soon as the body is encoded
+	private static final ByteArrayPool BODY_BUFFER_POOL = new ByteArrayPool(BODY_BUFFER_POOL_SIZE);
+
+	// Either an already serialized json, when there is no gson, or the object to be serialized with it
+	private final Object content;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "No need to use in the toString")
+	private final Gson gson;
 	private final Map<String, String> headers;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "Same as content, no need to use in the toString")
+	private volatile byte[] body;
 
 	/**
 	 * Creates a new RfcCompliantListenableRequest instance
 	 *
+	 * The json is encoded just as object bodies are, when first requested and only once.
+	 *
 	 * @param method The request method, {@see Method}
 	 * @param url The url to be requested.
 	 * @param listener The listener for success.
@@ -52,7 +82,36 @@ public abstract class JsonRfcCompliantListenableRequest<T> extends
 					@Nullable final CancelListener cancelListener,
 					@Nullable final String jsonBody) {
 		super(method, url, listener, errListener, cancelListener);
-		this.json = jsonBody;
+		this.content = jsonBody;
+		this.gson = null;
+		headers = new HashMap<String, String>();
+	}
+
+	/**
+	 * Creates a new RfcCompliantListenableRequest instance, whose body is the given object
+	 * serialized with gson.
+	 *
+	 * Serialization is deferred until the body is first requested, which happens on
+	 * the network dispatcher thread, rather than on the thread creating the request.
+	 * The object is serialized straight into UTF-8 bytes, without an intermediate String,
+	 * and only once, no matter how many times the request is retried. It should therefore
+	 * not be modified once the request is queued.
+	 *
+	 * @param method The request method, {@see Method}
+	 * @param url The url to be requested.
+	 * @param listener The listener for success.
+	 * @param errListener The listener for errors.
+	 * @param cancelListener The listener for cancel.
+	 * @param gson The gson instance to serialize the body.
+	 * @param body The object to be sent as json in the request's body.
+	 */
+	public JsonRfcCompliantListenableRequest(final int method, @NonNull final String url,
+					@Nullable final Listener<T> listener, @Nullable final ErrorListener errListener,
+					@Nullable final CancelListener cancelListener,
+					@NonNull final Gson gson, @Nullable final Object body) {
+		super(method, url, listener, errListener, cancelListener);
+		this.content = body;
+		this.gson = gson;
 		headers = new HashMap<String, String>();
 	}
 
@@ -84,27 +143,76 @@ public abstract class JsonRfcCompliantListenableRequest<T> extends
 
 	@Override
 	public Map<String, String> getHeaders() throws AuthFailureError {
+		// Lets CACHE_ONLY requests be stopped before hitting the network
+		super.getHeaders();
 		return headers;
 	}
 
 	@Override
 	public String getBodyContentType() {
-		return "application/json";
+		return PROTOCOL_CONTENT_TYPE;
 	}
 
-	@SuppressFBWarnings(value = { "DM_DEFAULT_ENCODING", "MDM_STRING_BYTES_ENCODING" },
-					justification = "The encoding will be sent with the headers automatically")
+	/**
+	 * Retrieves the body to be sent. The body is encoded only once,
+	 * retries reuse the same bytes.
+	 *
+	 * @return The body, encoded in {@link #PROTOCOL_CHARSET}, or null if there is none.
+	 * @throws AuthFailureError In the event of auth failure, or if the body can't be encoded,
+	 *         in which case the request fails with a {@link VolleyError} instead of being sent.
+	 */
+	@SuppressFBWarnings(value = "EI_EXPOSE_REP",
+		justification = "The body is handed over to the network stack, copying it defeats the purpose")
 	@Nullable
 	@Override
 	public byte[] getBody() throws AuthFailureError {
-		return json == null ? null : json.getBytes();
+		if (body == null) {
+			body = encodeBody();
+		}
+
+		return body;
+	}
+
+	/**
+	 * Encodes the body to be sent. Called at most once per successful encoding,
+	 * the result is reused across retries.
+	 *
+	 * @return The body, encoded in {@link #PROTOCOL_CHARSET}, or null if there is none.
+	 * @throws AuthFailureError In the event of auth failure, or if the body can't be encoded.
+	 */
+	@Nullable
+	protected byte[] encodeBody() throws AuthFailureError {
+		if (content == null) {
+			return null;
+		}
+
+		final PoolingByteArrayOutputStream out = new PoolingByteArrayOutputStream(BODY_BUFFER_POOL,
+				BODY_BUFFER_SIZE);
+		try {
+			final Writer writer = new OutputStreamWriter(out, PROTOCOL_CHARSET);
+			if (gson == null) {
+				writer.write((String) content);
+			} else {
+				gson.toJson(content, writer);
+			}
+			writer.flush();
+			final byte[] bytes = out.toByteArray();
+
+			// Return the buffer to the pool. Should we fail before, it's returned once finalized
+			writer.close();
+			return bytes;
+		} catch (final IOException | RuntimeException e) {
+			// Gson reports most failures as JsonIOException, or whatever the type adapter throws
+			VolleyLog.wtf(e, "Could not encode body of %s", this);
+			throw abort(new VolleyError("Could not encode body of " + this, e));
+		}
 	}
 
 	@Override
 	public String toString() {
 		return "JsonRfcCompliantListenableRequest{"
 				+ "headers=" + headers
-				+ ", json='" + json + '\''
+				+ ", content=" + content
 				+ "} " + super.toString();
 	}
 }
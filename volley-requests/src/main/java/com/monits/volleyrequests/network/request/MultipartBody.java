@@ -0,0 +1,375 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * A multipart/form-data body, made up of text, byte array, file and stream parts.
+ *
+ * The length of the body is known upfront, without reading any file or stream,
+ * and the contents are copied straight from their source when written.
+ *
+ * Stream parts can only be read once, so the body should be written just once,
+ * as {@link GsonMultipartRequest} does.
+ */
+public class MultipartBody {
+	private static final String CHARSET = "UTF-8";
+	private static final String CRLF = "\r\n";
+	private static final String TEXT_CONTENT_TYPE = "text/plain; charset=utf-8";
+	private static final String BINARY_CONTENT_TYPE = "application/octet-stream";
+	private static final int COPY_BUFFER_SIZE = 8192;
+
+	private final String boundary;
+	private final List<Part> parts = new ArrayList<>();
+
+	/**
+	 * Creates a new, empty, MultipartBody with a random boundary.
+	 */
+	public MultipartBody() {
+		boundary = "VolleyRequestsBoundary" + UUID.randomUUID().toString().replace("-", "");
+	}
+
+	/**
+	 * Adds a plain text part.
+	 *
+	 * @param name The name of the form field.
+	 * @param value The value of the field.
+	 * @return The MultipartBody, for a fluid programming interface.
+	 */
+	@NonNull
+	public MultipartBody addPart(@NonNull final String name, @NonNull final String value) {
+		return addPart(name, value, TEXT_CONTENT_TYPE);
+	}
+
+	/**
+	 * Adds a text part with the given content type, such as a json document.
+	 *
+	 * @param name The name of the form field.
+	 * @param value The value of the field, will be encoded as UTF-8.
+	 * @param contentType The content type of the value.
+	 * @return The MultipartBody, for a fluid programming interface.
+	 */
+	@NonNull
+	public MultipartBody addPart(@NonNull final String name, @NonNull final String value,
+			@NonNull final String contentType) {
+		parts.add(new BytesPart(header(name, null, contentType), encode(value)));
+		return this;
+	}
+
+	/**
+	 * Adds a binary part.
+	 *
+	 * @param name The name of the form field.
+	 * @param filename The filename under which to submit the data.
+	 * @param data The contents of the part.
+	 * @param contentType The content type of the data, or null for application/octet-stream.
+	 * @return The MultipartBody, for a fluid programming interface.
+	 */
+	@SuppressFBWarnings(value = "EI_EXPOSE_REP2",
+		justification = "The data is only read once the body is written, copying it defeats the purpose")
+	@NonNull
+	public MultipartBody addPart(@NonNull final String name, @NonNull final String filename,
+			@NonNull final byte[] data, @Nullable final String contentType) {
+		parts.add(new BytesPart(header(name, filename, contentType), data));
+		return this;
+	}
+
+	/**
+	 * Adds a file part. The file is not read until the body is written.
+	 *
+	 * @param name The name of the form field.
+	 * @param file The file to be uploaded, submitted under its own name.
+	 * @param contentType The content type of the file, or null for application/octet-stream.
+	 * @return The MultipartBody, for a fluid programming interface.
+	 */
+	@NonNull
+	public MultipartBody addPart(@NonNull final String name, @NonNull final File file,
+			@Nullable final String contentType) {
+		parts.add(new FilePart(header(name, file.getName(), contentType), file));
+		return this;
+	}
+
+	/**
+	 * Adds a stream part. The stream is not read until the body is written, and closed afterwards.
+	 *
+	 * @param name The name of the form field.
+	 * @param filename The filename under which to submit the data.
+	 * @param stream The stream to be uploaded.
+	 * @param length The exact amount of bytes to be read from the stream.
+	 * @param contentType The content type of the data, or null for application/octet-stream.
+	 * @return The MultipartBody, for a fluid programming interface.
+	 */
+	@NonNull
+	public MultipartBody addPart(@NonNull final String name, @NonNull final String filename,
+			@NonNull final InputStream stream, final long length, @Nullable final String contentType) {
+		if (length < 0) {
+			throw new IllegalArgumentException("Stream length can't be negative, got " + length);
+		}
+
+		parts.add(new StreamPart(header(name, filename, contentType), stream, length));
+		return this;
+	}
+
+	/**
+	 * Retrieves the content type of the body, including the boundary.
+	 *
+	 * @return The content type of the body.
+	 */
+	@NonNull
+	public String getContentType() {
+		return "multipart/form-data; boundary=" + boundary;
+	}
+
+	/**
+	 * Computes the length of the body, without reading any of the parts.
+	 *
+	 * @return The amount of bytes the body will take.
+	 */
+	public long getContentLength() {
+		long length = encode(closingDelimiter()).length;
+		for (final Part part : parts) {
+			length += part.header.length + part.length() + CRLF.length();
+		}
+
+		return length;
+	}
+
+	/**
+	 * Writes the body to the given stream.
+	 *
+	 * @param out The stream on which to write.
+	 * @throws IOException If any of the parts could not be read, or the output could not be written.
+	 */
+	public void writeTo(@NonNull final OutputStream out) throws IOException {
+		final byte[] crlf = encode(CRLF);
+		for (final Part part : parts) {
+			out.write(part.header);
+			part.writeTo(out);
+			out.write(crlf);
+		}
+		out.write(encode(closingDelimiter()));
+	}
+
+	/**
+	 * Writes the body to an array of the exact size of the body.
+	 *
+	 * @return The body.
+	 * @throws IOException If any of the parts could not be read.
+	 */
+	@NonNull
+	public byte[] toByteArray() throws IOException {
+		final long length = getContentLength();
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("Multipart body is too large to be held in memory: " + length);
+		}
+
+		final FixedSizeOutputStream out = new FixedSizeOutputStream((int) length);
+		writeTo(out);
+		return out.getBytes();
+	}
+
+	@NonNull
+	private byte[] header(@NonNull final String name, @Nullable final String filename,
+			@Nullable final String contentType) {
+		final StringBuilder sb = new StringBuilder("--").append(boundary).append(CRLF)
+				.append("Content-Disposition: form-data; name=\"").append(escape(name)).append('"');
+		if (filename != null) {
+			sb.append("; filename=\"").append(escape(filename)).append('"');
+		}
+		sb.append(CRLF)
+			.append("Content-Type: ").append(contentType == null ? BINARY_CONTENT_TYPE : contentType)
+			.append(CRLF).append(CRLF);
+
+		return encode(sb.toString());
+	}
+
+	@NonNull
+	private String closingDelimiter() {
+		return "--" + boundary + "--" + CRLF;
+	}
+
+	@NonNull
+	private static String escape(@NonNull final String value) {
+		return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+	}
+
+	@NonNull
+	private static byte[] encode(@NonNull final String value) {
+		try {
+			return value.getBytes(CHARSET);
+		} catch (final UnsupportedEncodingException e) {
+			throw new AssertionError("UTF-8 is not supported");
+		}
+	}
+
+	private static void copy(@NonNull final InputStream in, @NonNull final OutputStream out,
+			final long length) throws IOException {
+		final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+		long remaining = length;
+		while (remaining > 0) {
+			final int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+			if (read == -1) {
+				throw new IOException("Stream ended " + remaining + " bytes before the expected length");
+			}
+			out.write(buffer, 0, read);
+			remaining -= read;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "MultipartBody{ boundary='" + boundary + '\''
+				+ ", parts=" + parts.size()
+				+ " }";
+	}
+
+	private abstract static class Part {
+		/*package*/ final byte[] header;
+
+		/*package*/ Part(@NonNull final byte[] header) {
+			this.header = header;
+		}
+
+		/*package*/ abstract long length();
+
+		/*package*/ abstract void writeTo(@NonNull OutputStream out) throws IOException;
+	}
+
+	private static class BytesPart extends Part {
+		private final byte[] data;
+
+		/*package*/ BytesPart(@NonNull final byte[] header, @NonNull final byte[] data) {
+			super(header);
+			this.data = data;
+		}
+
+		@Override
+		/*package*/ long length() {
+			return data.length;
+		}
+
+		@Override
+		/*package*/ void writeTo(@NonNull final OutputStream out) throws IOException {
+			out.write(data);
+		}
+	}
+
+	private static class FilePart extends Part {
+		private final File file;
+
+		/*package*/ FilePart(@NonNull final byte[] header, @NonNull final File file) {
+			super(header);
+			this.file = file;
+		}
+
+		@Override
+		/*package*/ long length() {
+			return file.length();
+		}
+
+		@Override
+		/*package*/ void writeTo(@NonNull final OutputStream out) throws IOException {
+			final InputStream in = new FileInputStream(file);
+			try {
+				copy(in, out, length());
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	private static class StreamPart extends Part {
+		private final InputStream stream;
+		private final long length;
+
+		/*package*/ StreamPart(@NonNull final byte[] header, @NonNull final InputStream stream,
+				final long length) {
+			super(header);
+			this.stream = stream;
+			this.length = length;
+		}
+
+		@Override
+		/*package*/ long length() {
+			return length;
+		}
+
+		@Override
+		/*package*/ void writeTo(@NonNull final OutputStream out) throws IOException {
+			try {
+				copy(stream, out, length);
+			} finally {
+				stream.close();
+			}
+		}
+	}
+
+	/**
+	 * An output stream over an array of a known size, so the result needs no further copies.
+	 */
+	private static class FixedSizeOutputStream extends OutputStream {
+		private final byte[] bytes;
+		private int count;
+
+		/*package*/ FixedSizeOutputStream(final int size) {
+			bytes = new byte[size];
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			ensureCapacity(1);
+			bytes[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(@NonNull final byte[] b, final int off, final int len) throws IOException {
+			ensureCapacity(len);
+			System.arraycopy(b, off, bytes, count, len);
+			count += len;
+		}
+
+		private void ensureCapacity(final int len) throws IOException {
+			if (count + len > bytes.length) {
+				throw new IOException("Multipart body is larger than its computed length, "
+						+ "did a file change while being uploaded?");
+			}
+		}
+
+		@NonNull
+		/*package*/ byte[] getBytes() throws IOException {
+			if (count != bytes.length) {
+				throw new IOException("Multipart body is shorter than its computed length, "
+						+ "did a file change while being uploaded?");
+			}
+
+			return bytes;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.android.volley.Cache;
+
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An in-memory LRU cache of already deserialized responses, sitting in front of Volley's
+ * byte level {@link Cache}.
+ *
+ * Entries are keyed by the request's cache key and the type into which the response
+ * was decoded, and are only valid as long as the underlying cache entry is the same one
+ * they were parsed from. That is, as long as its ETag (or Last-Modified or Date, in that order,
+ * when absent) doesn't change.
+ *
+ * Cached objects are shared among all requests retrieving them, so they should not be modified.
+ *
+ * By default the cache is bounded by entry count, override {@link #sizeOf(Object)} to bound it
+ * by estimated size instead.
+ */
+public class ParsedResponseCache {
+	private static final String LAST_MODIFIED = "Last-Modified";
+
+	private final int maxSize;
+	private final LinkedHashMap<Key, CachedValue> entries;
+	private int size;
+
+	/**
+	 * Creates a new ParsedResponseCache.
+	 *
+	 * @param maxSize The maximum size of the cache. Unless {@link #sizeOf(Object)} is overridden,
+	 *                this is the maximum amount of entries.
+	 */
+	@SuppressWarnings("checkstyle:magicnumber")
+	public ParsedResponseCache(final int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Max size must be positive, got " + maxSize);
+		}
+
+		this.maxSize = maxSize;
+
+		// Access order, so iteration starts with the least recently used
+		this.entries = new LinkedHashMap<>(0, 0.75f, true);
+	}
+
+	/**
+	 * Retrieves a previously parsed response.
+	 *
+	 * @param cacheKey The cache key of the request.
+	 * @param type The type into which the response was decoded.
+	 * @param entry The cache entry the response is being parsed from.
+	 * @return The parsed response, or null if there is none, or it was parsed from a different entry.
+	 */
+	@Nullable
+	public synchronized Object get(@NonNull final String cacheKey, @NonNull final Type type,
+			@NonNull final Cache.Entry entry) {
+		final Key key = new Key(cacheKey, type);
+		final CachedValue cached = entries.get(key);
+		if (cached == null) {
+			return null;
+		}
+
+		if (!cached.validator.equals(getValidator(entry))) {
+			// The response changed, the parsed value is stale
+			remove(key);
+			return null;
+		}
+
+		return cached.value;
+	}
+
+	/**
+	 * Stores a parsed response. Nothing is stored if the entry can't be validated later on.
+	 *
+	 * @param cacheKey The cache key of the request.
+	 * @param type The type into which the response was decoded.
+	 * @param entry The cache entry the response was parsed from.
+	 * @param value The parsed response.
+	 */
+	public synchronized void put(@NonNull final String cacheKey, @NonNull final Type type,
+			@NonNull final Cache.Entry entry, @NonNull final Object value) {
+		final String validator = getValidator(entry);
+		if (validator == null) {
+			return;
+		}
+
+		final Key key = new Key(cacheKey, type);
+		remove(key);
+
+		final CachedValue cached = new CachedValue(validator, value, sizeOf(value));
+		entries.put(key, cached);
+		size += cached.size;
+
+		trimToSize();
+	}
+
+	/**
+	 * Removes all responses parsed for the given cache key, whatever their type.
+	 *
+	 * @param cacheKey The cache key of the request.
+	 */
+	public synchronized void invalidate(@NonNull final String cacheKey) {
+		final Iterator<Map.Entry<Key, CachedValue>> it = entries.entrySet().iterator();
+		while (it.hasNext()) {
+			final Map.Entry<Key, CachedValue> e = it.next();
+			if (e.getKey().cacheKey.equals(cacheKey)) {
+				size -= e.getValue().size;
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all responses.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		size = 0;
+	}
+
+	/**
+	 * Estimates the size of a parsed response, in the same units as the max size of the cache.
+	 *
+	 * @param value The parsed response.
+	 * @return The size of the response. Defaults to 1, bounding the cache by entry count.
+	 */
+	protected int sizeOf(@NonNull final Object value) {
+		return 1;
+	}
+
+	private void remove(@NonNull final Key key) {
+		final CachedValue previous = entries.remove(key);
+		if (previous != null) {
+			size -= previous.size;
+		}
+	}
+
+	private void trimToSize() {
+		final Iterator<CachedValue> it = entries.values().iterator();
+		while (size > maxSize && it.hasNext()) {
+			size -= it.next().size;
+			it.remove();
+		}
+	}
+
+	@Nullable
+	private static String getValidator(@NonNull final Cache.Entry entry) {
+		if (entry.etag != null) {
+			return "etag:" + entry.etag;
+		}
+
+		final String lastModified = entry.responseHeaders == null ? null
+				: entry.responseHeaders.get(LAST_MODIFIED);
+		if (lastModified != null) {
+			return "last-modified:" + lastModified;
+		}
+
+		if (entry.serverDate != 0) {
+			return "date:" + entry.serverDate;
+		}
+
+		return null;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ParsedResponseCache{ maxSize=" + maxSize
+				+ ", size=" + size
+				+ ", entries=" + entries.size()
+				+ " }";
+	}
+
+	private static class Key {
+		private final String cacheKey;
+		private final Type type;
+
+		/*package*/ Key(@NonNull final String cacheKey, @NonNull final Type type) {
+			this.cacheKey = cacheKey;
+			this.type = type;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+
+			final Key other = (Key) o;
+			return cacheKey.equals(other.cacheKey) && type.equals(other.type);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * cacheKey.hashCode() + type.hashCode();
+		}
+	}
+
+	private static class CachedValue {
+		private final String validator;
+		private final Object value;
+		private final int size;
+
+		/*package*/ CachedValue(@NonNull final String validator, @NonNull final Object value,
+				final int size) {
+			this.validator = validator;
+			this.value = value;
+			this.size = size;
+		}
+	}
+}
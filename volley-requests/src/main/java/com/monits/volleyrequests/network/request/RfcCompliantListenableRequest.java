@@ -16,13 +16,29 @@
 
 package com.monits.volleyrequests.network.request;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.android.volley.AuthFailureError;
+import com.android.volley.Cache;
+import com.android.volley.NetworkResponse;
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
+import com.android.volley.Response;
 import com.android.volley.Response.ErrorListener;
 import com.android.volley.Response.Listener;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.HttpHeaderParser;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * A ListenableRequest that complies with RFC 2616, allowing for non GET / HEAD
@@ -51,11 +67,28 @@ import com.android.volley.Response.Listener;
  * Bare in mind this isn't 100% spec compliant. The cache is not checked before performing the request
  * but it's also used to actually store the response, shall it bring
  *
+ * Once a PUT / POST / PATCH / DELETE succeeds, the cached entries for the Request-URI,
+ * the Location and Content-Location of the response (as long as they are on the same host)
+ * and any other url added through {@link #addInvalidatedUrl(String)} are removed from the cache.
+ *
+ * How GET / HEAD requests use the cache can be tuned through {@link #setCachePolicy(CachePolicy)},
+ * and the key under which responses are cached through {@link #setCacheKeyStrategy(CacheKeyStrategy)}.
+ *
  * @author Juan Martín Sotuyo Dodero {@literal <jmsotuyo@monits.com>}
  */
 public abstract class RfcCompliantListenableRequest<T> extends ListenableRequest<T> {
+	private static final String LOCATION = "Location";
+	private static final String CONTENT_LOCATION = "Content-Location";
+	private static final String LAST_MODIFIED = "Last-Modified";
 
 	private RequestQueue requestQueue;
+	private CachePolicy cachePolicy = CachePolicy.CACHE_FIRST;
+	private CacheKeyStrategy cacheKeyStrategy;
+	private volatile boolean cacheEntryLookedUp;
+	private volatile boolean revalidated;
+	private volatile boolean networkAttempted;
+	private volatile Response<T> expiredResponse;
+	private final Set<String> invalidatedUrls = Collections.synchronizedSet(new LinkedHashSet<String>());
 
 	/**
 	 * Creates a new RfcCompliantListenableRequest instance
@@ -103,16 +136,414 @@ public abstract class RfcCompliantListenableRequest<T> extends ListenableRequest
 		return super.setRequestQueue(requestQueue);
 	}
 
+	/**
+	 * Sets how the request makes use of the cache. Must be set before adding the request to the queue.
+	 * Ignored for methods other than GET / HEAD, which are never served from cache.
+	 *
+	 * @param cachePolicy The cache policy to be used, {@link CachePolicy#CACHE_FIRST} by default.
+	 */
+	public void setCachePolicy(@NonNull final CachePolicy cachePolicy) {
+		this.cachePolicy = cachePolicy;
+
+		// NETWORK_ONLY requests skip Volley's cache dispatcher, see getCacheEntry
+		setShouldCache(isCacheable() && cachePolicy != CachePolicy.NETWORK_ONLY);
+	}
+
+	@NonNull
+	public CachePolicy getCachePolicy() {
+		return cachePolicy;
+	}
+
+	/**
+	 * Sets the strategy deciding the key under which the response is cached.
+	 * Must be set before adding the request to the queue.
+	 *
+	 * @param cacheKeyStrategy The strategy to be used, or null to key responses by url, as Volley does.
+	 */
+	public void setCacheKeyStrategy(@Nullable final CacheKeyStrategy cacheKeyStrategy) {
+		this.cacheKeyStrategy = cacheKeyStrategy;
+	}
+
+	@Nullable
+	public CacheKeyStrategy getCacheKeyStrategy() {
+		return cacheKeyStrategy;
+	}
+
+	@Override
+	public String getCacheKey() {
+		return toCacheKey(getUrl());
+	}
+
+	/**
+	 * Retrieves the cache key for the given url, as requested with this request's headers.
+	 *
+	 * @param url The url whose cache key to retrieve.
+	 * @return The cache key.
+	 */
+	@NonNull
+	protected String toCacheKey(@NonNull final String url) {
+		if (cacheKeyStrategy == null) {
+			return url;
+		}
+
+		Map<String, String> headers;
+		try {
+			headers = getHeaders();
+		} catch (final AuthFailureError e) {
+			// The request fails as soon as the network asks for them, the key doesn't matter
+			headers = null;
+		}
+
+		return cacheKeyStrategy.getCacheKey(url,
+				headers == null ? Collections.<String, String>emptyMap() : headers);
+	}
+
+	/**
+	 * Retrieves the cached entry to be revalidated.
+	 *
+	 * Volley's network asks for it on its dispatcher thread right before sending the request,
+	 * so this is where NETWORK_ONLY requests look it up, and CACHE_ONLY requests are flagged
+	 * to be stopped as soon as the network stack asks for their headers.
+	 *
+	 * The returned entry carries the Last-Modified date, if any, as its server date, since Volley
+	 * sends the latter as If-Modified-Since, and servers compare against the former.
+	 * The cached entry itself is left untouched.
+	 *
+	 * @return The cached entry to be revalidated, or null if there is none.
+	 */
+	@Override
+	public Cache.Entry getCacheEntry() {
+		if (!isCacheable()) {
+			return super.getCacheEntry();
+		}
+
+		if (cachePolicy == CachePolicy.CACHE_ONLY) {
+			networkAttempted = true;
+		} else if (cachePolicy == CachePolicy.NETWORK_ONLY && !cacheEntryLookedUp && requestQueue != null) {
+			cacheEntryLookedUp = true;
+			setCacheEntry(requestQueue.getCache().get(getCacheKey()));
+		}
+
+		return withLastModifiedValidator(super.getCacheEntry());
+	}
+
+	@Nullable
+	private static Cache.Entry withLastModifiedValidator(@Nullable final Cache.Entry entry) {
+		if (entry == null) {
+			return null;
+		}
+
+		final String lastModified = getHeader(entry.responseHeaders, LAST_MODIFIED);
+		final long lastModifiedDate = lastModified == null ? 0 : HttpHeaderParser.parseDateAsEpoch(lastModified);
+		if (lastModifiedDate <= 0) {
+			return entry;
+		}
+
+		final Cache.Entry validator = new Cache.Entry();
+		validator.data = entry.data;
+		validator.etag = entry.etag;
+		validator.serverDate = lastModifiedDate;
+		validator.ttl = entry.ttl;
+		validator.softTtl = entry.softTtl;
+		validator.responseHeaders = entry.responseHeaders;
+		return validator;
+	}
+
+	/**
+	 * Stops CACHE_ONLY requests that reached the network, as Volley lets requests fail from within
+	 * the network stack only through the errors thrown when retrieving their headers or body.
+	 * Such failures are delivered as any other.
+	 *
+	 * @return The headers of the request.
+	 * @throws AuthFailureError If the request is CACHE_ONLY, and it's about to hit the network.
+	 */
+	@Override
+	public Map<String, String> getHeaders() throws AuthFailureError {
+		if (networkAttempted) {
+			networkAttempted = false;
+			throw abort(new CacheMissError("No cached response for CACHE_ONLY request " + getUrl()));
+		}
+
+		return super.getHeaders();
+	}
+
+	/**
+	 * Fails the request from within the network stack, before it's sent. The given error,
+	 * rather than the {@link AuthFailureError} Volley forces requests to throw from there,
+	 * is the one delivered.
+	 *
+	 * @param error The error to be delivered.
+	 * @return The exception to be thrown from {@link #getHeaders()} or {@link #getBody()}.
+	 */
+	@NonNull
+	protected static AuthFailureError abort(@NonNull final VolleyError error) {
+		return new AbortError(error);
+	}
+
+	@Override
+	protected VolleyError parseNetworkError(final VolleyError volleyError) {
+		if (!(volleyError instanceof AbortError)) {
+			return super.parseNetworkError(volleyError);
+		}
+
+		final VolleyError error = ((AbortError) volleyError).error;
+		if (error instanceof CacheMissError) {
+			// Expired entries are still better than nothing for a request that can't hit the network
+			final Cache.Entry entry = super.getCacheEntry();
+			if (entry != null && entry.isExpired() && !hasHadResponseDelivered()) {
+				final Response<T> response = parseResponse(new NetworkResponse(entry.data,
+						entry.responseHeaders));
+				if (response.isSuccess()) {
+					expiredResponse = response;
+				}
+			}
+		}
+
+		return error;
+	}
+
+	@Override
+	public Request<?> setCacheEntry(final Cache.Entry entry) {
+		// Volley sends expired entries straight to the network, this request delivers them in the meantime
+		if (entry != null && entry.isExpired() && isCacheable()
+				&& cachePolicy == CachePolicy.STALE_WHILE_REVALIDATE && !hasHadResponseDelivered()) {
+			deliverStale(entry);
+		}
+
+		return super.setCacheEntry(entry);
+	}
+
+	private void deliverStale(@NonNull final Cache.Entry entry) {
+		final Response<T> stale = parseResponse(new NetworkResponse(entry.data, entry.responseHeaders));
+		if (!stale.isSuccess()) {
+			return;
+		}
+
+		// Just as Volley does with soft-expired entries, so a 304 Not Modified is not delivered again
+		markDelivered();
+		addMarker("stale-delivery");
+
+		// Posted to the main thread, as Volley's delivery does, so it comes before the network response
+		new Handler(Looper.getMainLooper()).post(new Runnable() {
+			@Override
+			public void run() {
+				if (!isCanceled()) {
+					deliverResponse(stale.result);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Parses the cache headers of a network response, shaping the entry as the cache policy requires.
+	 *
+	 * @param response The response to this request.
+	 * @return The entry to be cached, or null if the response must not be cached.
+	 */
+	@Nullable
+	protected Cache.Entry parseCacheHeaders(@NonNull final NetworkResponse response) {
+		// Only requests revalidating a cached entry get to parse network responses with it set
+		revalidated = super.getCacheEntry() != null;
+
+		final NetworkResponse fullResponse = mergeNotModified(response);
+		final Cache.Entry entry = HttpHeaderParser.parseCacheHeaders(fullResponse);
+		if (entry == null || !isCacheable()) {
+			return entry;
+		}
+
+		if (cachePolicy == CachePolicy.NETWORK_ONLY && requestQueue != null) {
+			// Volley doesn't store responses for requests skipping its cache
+			requestQueue.getCache().put(getCacheKey(), entry);
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Completes a 304 Not Modified response, which carries only the headers that changed,
+	 * with the headers of the revalidated entry.
+	 *
+	 * @param response The response to this request.
+	 * @return The merged response, or the given one if it's not a 304.
+	 */
+	@NonNull
+	protected NetworkResponse mergeNotModified(@NonNull final NetworkResponse response) {
+		final Cache.Entry revalidated = super.getCacheEntry();
+		if (!response.notModified || revalidated == null || revalidated.responseHeaders == null) {
+			return response;
+		}
+
+		final Map<String, String> headers = new HashMap<>(revalidated.responseHeaders);
+		if (response.headers != null) {
+			headers.putAll(response.headers);
+		}
+
+		return new NetworkResponse(response.statusCode, revalidated.data, headers, true);
+	}
+
+	/**
+	 * Checks if the request's method allows its response to be cached.
+	 *
+	 * @return True for GET / HEAD requests, false otherwise.
+	 */
+	protected boolean isCacheable() {
+		final int method = getMethod();
+		return method == Method.GET || method == Method.HEAD;
+	}
+
+	/**
+	 * Adds an url whose cached response becomes stale once this request succeeds,
+	 * such as the collection to which an element is posted. Ignored for GET / HEAD requests.
+	 *
+	 * @param url The url to be invalidated.
+	 */
+	public void addInvalidatedUrl(@NonNull final String url) {
+		invalidatedUrls.add(url);
+	}
+
+	/**
+	 * Retrieves the urls, other than the Request-URI, invalidated once this request succeeds.
+	 *
+	 * @return The urls to be invalidated.
+	 */
+	@NonNull
+	public Set<String> getInvalidatedUrls() {
+		return Collections.unmodifiableSet(invalidatedUrls);
+	}
+
+	/**
+	 * Invalidates the cache as needed, and parses the response through {@link #parseResponse(NetworkResponse)}.
+	 * Invalidation happens on the network dispatcher thread, before the response is delivered.
+	 *
+	 * @param response The response to this request.
+	 * @return The parsed response.
+	 */
+	@Override
+	protected final Response<T> parseNetworkResponse(final NetworkResponse response) {
+		invalidateCache(response);
+
+		return parseResponse(response);
+	}
+
+	/**
+	 * Parses the raw response, be it from the network or the cache, into the type of this request.
+	 *
+	 * @param response The response to be parsed.
+	 * @return The parsed response, or an error.
+	 */
+	protected abstract Response<T> parseResponse(@NonNull NetworkResponse response);
+
+	/**
+	 * Invalidates the cached entries made stale by the given response, as stated by Section 13.10.
+	 * Does nothing for GET / HEAD / OPTIONS / TRACE requests.
+	 *
+	 * @param response The response to this request.
+	 */
+	protected void invalidateCache(@NonNull final NetworkResponse response) {
+		final int method = getMethod();
+		if (method != Method.POST && method != Method.PUT
+				&& method != Method.PATCH && method != Method.DELETE) {
+			return;
+		}
+
+		invalidate(getCacheKey());
+
+		synchronized (invalidatedUrls) {
+			for (final String url : invalidatedUrls) {
+				invalidate(toCacheKey(url));
+			}
+		}
+
+		invalidateLocation(getHeader(response.headers, LOCATION));
+		invalidateLocation(getHeader(response.headers, CONTENT_LOCATION));
+	}
+
+	/**
+	 * Removes the cached response for the given cache key.
+	 *
+	 * @param cacheKey The cache key of the stale response.
+	 */
+	protected void invalidate(@NonNull final String cacheKey) {
+		if (requestQueue != null) {
+			requestQueue.getCache().remove(cacheKey);
+		}
+	}
+
+	private void invalidateLocation(@Nullable final String location) {
+		if (location == null) {
+			return;
+		}
+
+		try {
+			final URI requestUri = new URI(getUrl());
+			final URI target = requestUri.resolve(location);
+
+			// Section 13.10 forbids invalidating other hosts' entities, to prevent denial of service attacks
+			if (requestUri.getHost() != null && requestUri.getHost().equalsIgnoreCase(target.getHost())) {
+				invalidate(toCacheKey(target.toString()));
+			}
+		} catch (final URISyntaxException | IllegalArgumentException e) {
+			// Not a valid uri, nothing we could have cached
+		}
+	}
+
+	@Nullable
+	private static String getHeader(@Nullable final Map<String, String> headers, @NonNull final String name) {
+		if (headers == null) {
+			return null;
+		}
+
+		for (final Map.Entry<String, String> header : headers.entrySet()) {
+			if (name.equalsIgnoreCase(header.getKey())) {
+				return header.getValue();
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public void deliverError(final VolleyError error) {
+		if (isCacheable() && cachePolicy == CachePolicy.CACHE_ONLY) {
+			// May be refreshed after serving a soft-expired response, that's all it gets
+			if (hasHadResponseDelivered()) {
+				return;
+			}
+
+			final Response<T> expired = expiredResponse;
+			if (expired != null) {
+				deliverResponse(expired.result);
+				return;
+			}
+		}
+
+		super.deliverError(error);
+	}
+
 	@Override
 	protected void deliverResponse(final T ret) {
 		/*
 		 * Manually store in cache if the server replied with caching headers
-		 * (valid even for methods that invalidate cache)
+		 * (valid even for methods that invalidate cache). Revalidated responses are already
+		 * stored, they must not be overwritten with the stale entry.
 		 */
-		if (getCacheEntry() != null) {
-			requestQueue.getCache().put(getCacheKey(), getCacheEntry());
+		final Cache.Entry entry = super.getCacheEntry();
+		if (entry != null && !revalidated) {
+			requestQueue.getCache().put(getCacheKey(), entry);
 		}
 
 		super.deliverResponse(ret);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Wraps the error to be delivered for a request failed from within the network stack.
+	 */
+	private static final class AbortError extends AuthFailureError {
+		private final VolleyError error;
+
+		/*package*/ AbortError(@NonNull final VolleyError error) {
+			super(error.getMessage());
+			this.error = error;
+		}
+	}
+}
@@ -17,7 +17,6 @@
 package com.monits.volleyrequests.network.request;
 
 import android.graphics.Bitmap;
-import android.graphics.Bitmap.CompressFormat;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
@@ -39,10 +38,13 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
  * Implementation of {@link RfcCompliantListenableRequest} used to upload
- * JPEG images as Multipart files.
+ * images as Multipart files.
  * 
- * The files are uploaded in the same size and resolution as provided,
- * any scaling / quality processing should be done ahead by the developer.
+ * By default, the files are uploaded as JPEG in the same size and resolution as provided.
+ * The format, quality and maximum size can be configured through {@link BitmapUploadOptions}.
+ *
+ * The image is compressed only once, the first time the body is requested,
+ * and the resulting body is reused should the request be retried.
  */
 public class UploadBitmapRfcCompliantListenableRequest extends
 				RfcCompliantListenableRequest<String> {
@@ -51,10 +53,19 @@ public class UploadBitmapRfcCompliantListenableRequest extends
 	private static final String CONTENT_TYPE = "multipart/form-data; boundary=" + BOUNDARY;
 	private static final String MULTIPART_HEAD = "--" + BOUNDARY + "\r\n"
 					+ "Content-Disposition: form-data; name=\"%1$s\"; filename=\"%1$s\"\r\n"
-					+ "Content-Type: image/jpeg\r\n\r\n";
+					+ "Content-Type: %2$s\r\n\r\n";
 	private static final String MULTIPART_TAIL = "\r\n--" + BOUNDARY + "--\r\n";
+	private static final String MULTIPART_CHARSET = "UTF-8";
+
+	// Rough guess of the compressed size, to avoid most buffer growth while compressing
+	private static final int PIXELS_PER_COMPRESSED_BYTE = 2;
+
 	private final Bitmap bitmap;
 	private final String filename;
+	private final BitmapUploadOptions options;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "Derived from the bitmap, no need to use in the toString")
+	private volatile byte[] body;
 
 	/**
 	 * Creates a new UploadBitmapRfcCompliantListenableRequest request.
@@ -66,18 +77,20 @@ public class UploadBitmapRfcCompliantListenableRequest extends
 	 * @param cancelListener The listener for errors
 	 * @param bmp The bitmap to be uploaded.
 	 * @param filename The filename under which to submit the image.
+	 * @param options The options on how to encode the image.
 	 */
-
 	@SuppressWarnings("checkstyle:magicnumber")
 	public UploadBitmapRfcCompliantListenableRequest(final int method, @NonNull final String url,
 						@Nullable final Listener<String> listener,
 						@Nullable final ErrorListener errListener,
 						@Nullable final CancelListener cancelListener,
-						@NonNull final Bitmap bmp, @NonNull final String filename) {
+						@NonNull final Bitmap bmp, @NonNull final String filename,
+						@NonNull final BitmapUploadOptions options) {
 		super(method, url, listener, errListener, cancelListener);
 
 		bitmap = bmp;
 		this.filename = filename;
+		this.options = options;
 
 		/*
 		 * Default Volley timeout is too low for most images in slow networks.
@@ -85,6 +98,27 @@ public class UploadBitmapRfcCompliantListenableRequest extends
 		 */
 		setRetryPolicy(new DefaultRetryPolicy(30000, 1, 1.5f));
 	}
+
+	/**
+	 * Creates a new UploadBitmapRfcCompliantListenableRequest request, uploading the image
+	 * with the {@link BitmapUploadOptions#DEFAULT default options}.
+	 *
+	 * @param method The request method, {@see Method}
+	 * @param url The url to be requested.
+	 * @param listener The listener for success.
+	 * @param errListener The listener for errors.
+	 * @param cancelListener The listener for errors
+	 * @param bmp The bitmap to be uploaded.
+	 * @param filename The filename under which to submit the image.
+	 */
+	public UploadBitmapRfcCompliantListenableRequest(final int method, @NonNull final String url,
+						@Nullable final Listener<String> listener,
+						@Nullable final ErrorListener errListener,
+						@Nullable final CancelListener cancelListener,
+						@NonNull final Bitmap bmp, @NonNull final String filename) {
+		this(method, url, listener, errListener, cancelListener, bmp, filename, BitmapUploadOptions.DEFAULT);
+	}
+
 	/**
 	 * Creates a new UploadBitmapRfcCompliantListenableRequest request with
 	 * less parameters for backwards compatibility
@@ -104,10 +138,10 @@ public class UploadBitmapRfcCompliantListenableRequest extends
 	}
 
 	@Override
-	protected Response<String> parseNetworkResponse(final NetworkResponse response) {
+	protected Response<String> parseResponse(@NonNull final NetworkResponse response) {
 		try {
 			final String str = new String(response.data, HttpHeaderParser.parseCharset(response.headers));
-			return Response.success(str, HttpHeaderParser.parseCacheHeaders(response));
+			return Response.success(str, parseCacheHeaders(response));
 		} catch (final UnsupportedEncodingException e) {
 			return Response.error(new ParseError(e));
 		}
@@ -118,20 +152,47 @@ public class UploadBitmapRfcCompliantListenableRequest extends
 		return CONTENT_TYPE;
 	}
 
-	@SuppressWarnings("checkstyle:magicnumber")
-	@SuppressFBWarnings(value = { "DM_DEFAULT_ENCODING", "MDM_STRING_BYTES_ENCODING",
-					"VA_FORMAT_STRING_USES_NEWLINE" },
-					justification = "The encoding will be sent with the headers automatically."
-					+ " The protocol requires \\r\\n, independently on the platform")
+	@SuppressFBWarnings(value = "EI_EXPOSE_REP",
+		justification = "The body is handed over to the network stack, copying it defeats the purpose")
 	@Override
 	public byte[] getBody() throws AuthFailureError {
-		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		if (body == null) {
+			body = encodeBody();
+		}
+
+		return body;
+	}
+
+	@SuppressFBWarnings(value = "VA_FORMAT_STRING_USES_NEWLINE",
+					justification = "The protocol requires \\r\\n, independently on the platform")
+	@NonNull
+	private byte[] encodeBody() {
+		final byte[] head;
+		final byte[] tail;
+		try {
+			head = String.format(MULTIPART_HEAD, filename, options.getMimeType())
+					.getBytes(MULTIPART_CHARSET);
+			tail = MULTIPART_TAIL.getBytes(MULTIPART_CHARSET);
+		} catch (final UnsupportedEncodingException e) {
+			throw new AssertionError("UTF-8 is not supported");
+		}
+
+		final Bitmap scaled = options.scale(bitmap);
+
+		// Compress straight after the multipart head, so the image is never copied on its own
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream(head.length + tail.length
+				+ scaled.getWidth() * scaled.getHeight() / PIXELS_PER_COMPRESSED_BYTE);
 		try {
-			bos.write(String.format(MULTIPART_HEAD, filename).getBytes());
-			bitmap.compress(CompressFormat.JPEG, 100, bos);
-			bos.write(MULTIPART_TAIL.getBytes());
+			bos.write(head);
+			scaled.compress(options.getFormat(), options.getQuality(), bos);
+			bos.write(tail);
 		} catch (final IOException e) {
 			Log.wtf("UploadBitmapRfcCompliantListenableRequest", "Unexpected error building multipart body.", e);
+		} finally {
+			// The scaled copy is ours, don't wait for the GC to free it
+			if (scaled != bitmap) {
+				scaled.recycle();
+			}
 		}
 
 		return bos.toByteArray();
@@ -142,6 +203,7 @@ public class UploadBitmapRfcCompliantListenableRequest extends
 		return "UploadBitmapRfcCompliantListenableRequest{ "
 				+ "bitmap=" + bitmap
 				+ ", filename='" + filename + '\''
+				+ ", options=" + options
 				+ " }";
 	}
 }
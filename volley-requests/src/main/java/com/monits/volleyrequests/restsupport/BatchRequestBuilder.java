@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.restsupport;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.android.volley.BatchRequest;
+import com.android.volley.Request;
+import com.android.volley.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects several {@link RequestBuilder}s to send them in a single {@link BatchRequest}.
+ *
+ * Each request keeps its own listeners and decode type, the batch only saves the round trips.
+ */
+public class BatchRequestBuilder {
+	private final String url;
+	private final List<RequestBuilder<?, ?>> builders = new ArrayList<>();
+	private Response.ErrorListener errorListener;
+
+	/*package*/ BatchRequestBuilder(@NonNull final String url) {
+		this.url = url;
+	}
+
+	/**
+	 * Adds a request to the batch. Requests are sent, and their responses delivered, in the order
+	 * in which they are added.
+	 *
+	 * @param builder The builder of the request to be added. It should not be changed afterwards.
+	 * @return The BatchRequestBuilder, for a fluid programming interface.
+	 */
+	@NonNull
+	public BatchRequestBuilder add(@NonNull final RequestBuilder<?, ?> builder) {
+		builders.add(builder);
+		return this;
+	}
+
+	/**
+	 * Sets an error listener for the batch as a whole, notified after the error is delivered
+	 * to each of the batched requests.
+	 *
+	 * There can be only one. Calling this method more than once overwrites the value.
+	 * Passing null simply deletes any already set listener.
+	 *
+	 * @param listener The listener to be used.
+	 * @return The BatchRequestBuilder, for a fluid programming interface.
+	 */
+	@NonNull
+	public BatchRequestBuilder onError(@Nullable final Response.ErrorListener listener) {
+		this.errorListener = listener;
+		return this;
+	}
+
+	/**
+	 * Retrieves the url of the batch endpoint.
+	 *
+	 * @return The url to be requested.
+	 */
+	@NonNull
+	public String getRequestUrl() {
+		return url;
+	}
+
+	/**
+	 * Create the configured batch request.
+	 *
+	 * @return The generated request.
+	 * @throws IllegalStateException If no request was added to the batch.
+	 */
+	@NonNull
+	public BatchRequest request() {
+		if (builders.isEmpty()) {
+			throw new IllegalStateException("Can't create an empty batch for " + url);
+		}
+
+		final List<Request<?>> requests = new ArrayList<>(builders.size());
+		for (final RequestBuilder<?, ?> builder : builders) {
+			requests.add(builder.request());
+		}
+
+		return new BatchRequest(url, requests, errorListener);
+	}
+
+	@Override
+	public String toString() {
+		return "BatchRequestBuilder{ url='" + url + '\''
+			+ ", builders=" + builders
+			+ " }";
+	}
+}
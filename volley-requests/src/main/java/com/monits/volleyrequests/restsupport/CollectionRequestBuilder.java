@@ -0,0 +1,139 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.restsupport;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.monits.volleyrequests.network.request.CacheKeyStrategy;
+import com.monits.volleyrequests.network.request.CachePolicy;
+import com.monits.volleyrequests.network.request.ChunkedGsonListRequest.ChunkListener;
+import com.monits.volleyrequests.network.request.GsonEnvelopeRequest.MetadataListener;
+import com.monits.volleyrequests.network.request.ListenableRequest.CancelListener;
+import com.monits.volleyrequests.network.request.MultipartBody;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Defines a builder for requests retrieving a collection of elements.
+ *
+ * @param <T> The type of the elements in the collection.
+ */
+public interface CollectionRequestBuilder<T> extends RequestBuilder<T, List<T>> {
+	/**
+	 * Sets a listener for the fields of the response's envelope other than the elements.
+	 *
+	 * This only takes effect when an elements key is set through {@link Rest#setElementsKey(String)}.
+	 * There can be only one. Calling this method more than once overwrites the value.
+	 * Passing null simply deletes any already set listener.
+	 *
+	 * @param listener The listener to be used.
+	 * @return The CollectionRequestBuilder, for a fluid programming interface.
+	 */
+	@NonNull
+	CollectionRequestBuilder<T> onMetadata(@Nullable MetadataListener listener);
+
+	/**
+	 * Sets a listener to receive the elements in batches.
+	 *
+	 * Batches are delivered right before the success listener receives the full list,
+	 * and only for responses that were parsed successfully.
+	 * Metadata is not collected for chunked requests, so this takes precedence over
+	 * {@link #onMetadata(MetadataListener)}.
+	 * There can be only one. Calling this method more than once overwrites the value.
+	 * Passing null simply deletes any already set listener.
+	 *
+	 * @param chunkSize The amount of elements in each batch, must be positive.
+	 * @param listener The listener to be used.
+	 * @return The CollectionRequestBuilder, for a fluid programming interface.
+	 */
+	@NonNull
+	CollectionRequestBuilder<T> onChunk(int chunkSize, @Nullable ChunkListener<T> listener);
+
+	/**
+	 * Walks the collection one page at a time, using the current configuration for the first page.
+	 *
+	 * The builder is owned by the pager from then on. The pager chains its own metadata listener,
+	 * which hands the metadata over along with each page, to the one already set, which keeps
+	 * being called. Cursors only go into the url of each page request, the builder's query
+	 * parameters are left untouched. Success and error listeners are still called for every page.
+	 *
+	 * @param queue The queue to which page requests are added.
+	 * @param listener The listener receiving each requested page.
+	 * @return A pager for the collection, from which pages can be requested.
+	 */
+	@NonNull
+	Pager<T> paged(@NonNull RequestQueue queue, @NonNull Pager.PageListener<T> listener);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> header(@NonNull String header, @NonNull String value);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> headers(@NonNull Map<String, String> headers);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> query(@NonNull String param, @NonNull String value);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> query(@NonNull String param, @NonNull Object... values);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> query(@NonNull Map<String, String> queryParams);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> fields(@NonNull String... fields);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> project();
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> include(@NonNull String... relations);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> onSuccess(@Nullable Response.Listener<List<T>> listener);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> onError(@Nullable Response.ErrorListener listener);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> onCancel(@Nullable CancelListener listener);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> multipart(@Nullable MultipartBody body);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> cachePolicy(@Nullable CachePolicy cachePolicy);
+
+	@NonNull
+	@Override
+	CollectionRequestBuilder<T> cacheKey(@Nullable CacheKeyStrategy cacheKeyStrategy);
+}
@@ -0,0 +1,504 @@
+/*
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.restsupport;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.android.volley.Cache;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.RequestDecorator;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.monits.volleyrequests.network.request.GsonEnvelopeRequest.MetadataListener;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Walks a paged collection, one page at a time, as requested through {@link #next()}.
+ *
+ * The next page is located, in order, through:
+ * <ul>
+ *     <li>A <code>Link</code> header with <code>rel="next"</code>.</li>
+ *     <li>The value at the next key of the response's envelope, such as <code>"next"</code>
+ *     or <code>"links.next"</code>. Urls are followed, any other value is sent as a cursor
+ *     in a query parameter of the original request.</li>
+ * </ul>
+ * The collection ends as soon as none is found, or the one found is empty.
+ *
+ * While the current page is being displayed, up to <code>lookAhead</code> pages are prefetched,
+ * so they are available right away when requested. Pages are not retained once delivered,
+ * so memory is bounded by the look-ahead no matter how long the collection is.
+ *
+ * Pages are always requested one after the other, as each one tells where the next one is.
+ * A pager is meant to be used from the main thread, where listeners are called.
+ *
+ * @param <T> The type of the elements in the collection.
+ */
+public class Pager<T> {
+	private static final String LINK = "Link";
+	private static final String NEXT = "next";
+	private static final String DEFAULT_CURSOR_PARAM = "cursor";
+
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "No need to use in the toString")
+	private final RestCollection<T> collection;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "No need to use in the toString")
+	private final RequestQueue queue;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "No need to use in the toString")
+	private final PageListener<T> listener;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "Already accounted for with its size")
+	private final Queue<Page<T>> prefetched = new ArrayDeque<>();
+
+	private int lookAhead = 1;
+	private String nextKey = NEXT;
+	private String cursorParam = DEFAULT_CURSOR_PARAM;
+
+	private String nextUrl;
+	private int requested;
+	private int loadedPages;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "Transient paging state, no need to use in the toString")
+	private PageRequest inFlight;
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "Transient paging state, no need to use in the toString")
+	private JsonObject metadata;
+
+	/*package*/ Pager(@NonNull final RestCollection<T> collection, @NonNull final RequestQueue queue,
+			@NonNull final PageListener<T> listener) {
+		this.collection = collection;
+		this.queue = queue;
+		this.listener = listener;
+		this.nextUrl = collection.getRequestUrl();
+
+		// Chained, so the listener the caller set, if any, keeps getting called
+		final MetadataListener callerListener = collection.getMetadataListener();
+		collection.onMetadata(new MetadataListener() {
+			@Override
+			public void onMetadata(@NonNull final JsonObject metadata) {
+				Pager.this.metadata = metadata;
+				if (callerListener != null) {
+					callerListener.onMetadata(metadata);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Sets how many pages are prefetched ahead of the ones requested. Defaults to 1.
+	 *
+	 * @param lookAhead The amount of pages to prefetch, 0 to only fetch pages when requested.
+	 */
+	public void setLookAhead(final int lookAhead) {
+		if (lookAhead < 0) {
+			throw new IllegalArgumentException("Look-ahead can't be negative, got " + lookAhead);
+		}
+
+		this.lookAhead = lookAhead;
+	}
+
+	/**
+	 * Sets the key of the envelope under which the next page is found, used in the absence of
+	 * a <code>Link</code> header. Nested keys are separated by dots, such as "links.next".
+	 * Defaults to "next".
+	 *
+	 * @param nextKey The key to the next page.
+	 */
+	public void setNextKey(@NonNull final String nextKey) {
+		this.nextKey = nextKey;
+	}
+
+	/**
+	 * Sets the query parameter in which cursors are sent, for envelopes holding a cursor or
+	 * page number rather than an url to the next page. Defaults to "cursor".
+	 *
+	 * @param cursorParam The name of the query parameter.
+	 */
+	public void setCursorParam(@NonNull final String cursorParam) {
+		this.cursorParam = cursorParam;
+	}
+
+	/**
+	 * Requests the next page, delivered to the {@link PageListener}. If the page has already
+	 * been prefetched, it's delivered right away.
+	 *
+	 * Requesting several pages in a row delivers them in order, one after the other.
+	 */
+	public void next() {
+		final Page<T> page = prefetched.poll();
+		if (page == null) {
+			requested++;
+		} else {
+			listener.onPage(page);
+		}
+
+		fetch();
+	}
+
+	/**
+	 * Checks whether there are more pages to be requested.
+	 *
+	 * @return True if there are pages already prefetched, or still to be fetched.
+	 */
+	public boolean hasNext() {
+		return !prefetched.isEmpty() || nextUrl != null;
+	}
+
+	/**
+	 * Cancels any page in flight, and discards the prefetched ones. No further pages are delivered.
+	 */
+	public void cancel() {
+		if (inFlight != null) {
+			inFlight.cancel();
+			inFlight = null;
+		}
+
+		prefetched.clear();
+		nextUrl = null;
+		requested = 0;
+	}
+
+	private void fetch() {
+		if (inFlight != null || nextUrl == null || prefetched.size() >= requested + lookAhead) {
+			return;
+		}
+
+		metadata = null;
+		inFlight = new PageRequest(collection.request(nextUrl));
+		queue.add(inFlight);
+	}
+
+	/*package*/ void onPageLoaded(@NonNull final PageRequest request, @Nullable final List<T> elements) {
+		if (request != inFlight) {
+			// Canceled, or an already delivered page being refreshed
+			return;
+		}
+
+		inFlight = null;
+		nextUrl = getNextUrl(request);
+
+		final Page<T> page = new Page<>(loadedPages++,
+				elements == null ? Collections.<T>emptyList() : elements, metadata, nextUrl != null);
+		if (requested > 0) {
+			requested--;
+			listener.onPage(page);
+		} else {
+			prefetched.add(page);
+		}
+
+		fetch();
+	}
+
+	/*package*/ void onPageFailed(@NonNull final PageRequest request, @NonNull final VolleyError error) {
+		if (request != inFlight) {
+			return;
+		}
+
+		// Not fetched again until requested, not to retry a failing page endlessly
+		inFlight = null;
+		if (requested > 0) {
+			requested = 0;
+			listener.onError(error);
+		}
+	}
+
+	@Nullable
+	private String getNextUrl(@NonNull final PageRequest request) {
+		if (request.nextLink != null) {
+			return resolve(request.getUrl(), request.nextLink);
+		}
+
+		final JsonElement next = getNext(metadata);
+		if (next == null) {
+			return null;
+		}
+
+		final String value = next.getAsString();
+		if (value.isEmpty()) {
+			// Some APIs send an empty value, rather than none, on the last page
+			return null;
+		}
+
+		if (value.contains("://") || value.startsWith("/")) {
+			return resolve(request.getUrl(), value);
+		}
+
+		// A cursor, sent along with the original request
+		return withCursor(collection.getRequestUrl(), value);
+	}
+
+	/**
+	 * Appends a cursor to the original request url, leaving the collection's own query params untouched.
+	 *
+	 * @param requestUrl The url of the original request, including its query params.
+	 * @param cursor The cursor to the next page.
+	 * @return The url of the next page.
+	 */
+	@NonNull
+	private String withCursor(@NonNull final String requestUrl, @NonNull final String cursor) {
+		final StringBuilder sb = new StringBuilder(requestUrl.length() + cursorParam.length()
+				+ cursor.length() + 2);
+		sb.append(requestUrl).append(requestUrl.indexOf('?') == -1 ? '?' : '&');
+		PercentEncoder.appendQueryComponent(sb, cursorParam);
+		sb.append('=');
+		PercentEncoder.appendQueryComponent(sb, cursor);
+
+		return sb.toString();
+	}
+
+	@Nullable
+	private JsonElement getNext(@Nullable final JsonObject envelope) {
+		JsonElement element = envelope;
+		for (final String key : nextKey.split("\\.")) {
+			if (element == null || !element.isJsonObject()) {
+				return null;
+			}
+			element = element.getAsJsonObject().get(key);
+		}
+
+		if (element == null || !element.isJsonPrimitive()) {
+			return null;
+		}
+
+		return element;
+	}
+
+	@NonNull
+	private static String resolve(@NonNull final String base, @NonNull final String url) {
+		try {
+			return new URI(base).resolve(url).toString();
+		} catch (final URISyntaxException | IllegalArgumentException e) {
+			return url;
+		}
+	}
+
+	/**
+	 * Extracts the url with <code>rel="next"</code> out of a <code>Link</code> header,
+	 * such as <code>&lt;http://api.com/items?page=2&gt;; rel="next", &lt;...&gt;; rel="last"</code>
+	 *
+	 * @param header The value of the header.
+	 * @return The url of the next page, or null if there is none.
+	 */
+	@Nullable
+	/*package*/ static String parseNextLink(@Nullable final String header) {
+		if (header == null) {
+			return null;
+		}
+
+		int start = header.indexOf('<');
+		while (start != -1) {
+			final int end = header.indexOf('>', start);
+			if (end == -1) {
+				return null;
+			}
+
+			// Params run until the next link
+			final int nextStart = header.indexOf('<', end);
+			final String params = nextStart == -1 ? header.substring(end + 1)
+					: header.substring(end + 1, nextStart);
+			if (isNextRel(params)) {
+				return header.substring(start + 1, end);
+			}
+
+			start = nextStart;
+		}
+
+		return null;
+	}
+
+	private static boolean isNextRel(@NonNull final String params) {
+		for (final String param : params.split(";")) {
+			final String[] pair = param.split("=", 2);
+			if (pair.length == 2 && "rel".equalsIgnoreCase(pair[0].trim())) {
+				// Rel may hold several space separated relations
+				for (final String rel : pair[1].replace("\"", "").replace(",", "").trim().split("\\s+")) {
+					if (NEXT.equalsIgnoreCase(rel)) {
+						return true;
+					}
+				}
+			}
+		}
+
+		return false;
+	}
+
+	@Nullable
+	private static String getHeader(@Nullable final Map<String, String> headers) {
+		if (headers == null) {
+			return null;
+		}
+
+		for (final Map.Entry<String, String> header : headers.entrySet()) {
+			if (LINK.equalsIgnoreCase(header.getKey())) {
+				return header.getValue();
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return "Pager{ nextUrl='" + nextUrl + '\''
+			+ ", lookAhead=" + lookAhead
+			+ ", nextKey='" + nextKey + '\''
+			+ ", cursorParam='" + cursorParam + '\''
+			+ ", requested=" + requested
+			+ ", loadedPages=" + loadedPages
+			+ ", prefetched=" + prefetched.size()
+			+ " }";
+	}
+
+	/**
+	 * Listener for the pages of a {@link Pager}.
+	 *
+	 * @param <T> The type of the elements in the collection.
+	 */
+	public interface PageListener<T> {
+		/**
+		 * Receives a requested page.
+		 *
+		 * @param page The page.
+		 */
+		void onPage(@NonNull Page<T> page);
+
+		/**
+		 * Receives the error of a requested page. The page is fetched again when next requested.
+		 *
+		 * @param error The error.
+		 */
+		void onError(@NonNull VolleyError error);
+	}
+
+	/**
+	 * A page of a collection.
+	 *
+	 * @param <T> The type of the elements in the collection.
+	 */
+	public static final class Page<T> {
+		private final int index;
+		private final List<T> elements;
+		private final JsonObject metadata;
+		private final boolean last;
+
+		/*package*/ Page(final int index, @NonNull final List<T> elements, @Nullable final JsonObject metadata,
+				final boolean hasNext) {
+			this.index = index;
+			this.elements = elements;
+			this.metadata = metadata;
+			this.last = !hasNext;
+		}
+
+		/**
+		 * Retrieves the position of the page in the collection, starting from 0.
+		 *
+		 * @return The index of the page.
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * Retrieves the elements in the page.
+		 *
+		 * @return The elements.
+		 */
+		@NonNull
+		public List<T> getElements() {
+			return elements;
+		}
+
+		/**
+		 * Retrieves the fields of the page's envelope other than the elements, if any.
+		 *
+		 * @return The envelope without the elements, or null if the response had none.
+		 */
+		@Nullable
+		public JsonObject getMetadata() {
+			return metadata;
+		}
+
+		/**
+		 * Checks whether this is the last page of the collection.
+		 *
+		 * @return True if there are no more pages.
+		 */
+		public boolean isLast() {
+			return last;
+		}
+
+		@Override
+		public String toString() {
+			return "Page{ index=" + index
+				+ ", elements=" + elements.size()
+				+ ", last=" + last
+				+ " }";
+		}
+	}
+
+	/**
+	 * The request of a single page, keeping track of its <code>Link</code> header.
+	 */
+	/*package*/ class PageRequest extends RequestDecorator<List<T>> {
+		@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+			justification = "No need to use in the toString")
+		private volatile String nextLink;
+
+		/*package*/ PageRequest(@NonNull final Request<List<T>> request) {
+			super(request);
+		}
+
+		@Override
+		protected Response<List<T>> parseNetworkResponse(final NetworkResponse response) {
+			String link = parseNextLink(getHeader(response.headers));
+			if (link == null && response.notModified) {
+				// Not modified responses need not repeat the headers of the cached response
+				final Cache.Entry entry = getCacheEntry();
+				link = entry == null ? null : parseNextLink(getHeader(entry.responseHeaders));
+			}
+			nextLink = link;
+
+			return super.parseNetworkResponse(response);
+		}
+
+		@Override
+		protected void deliverResponse(final List<T> response) {
+			super.deliverResponse(response);
+			onPageLoaded(this, response);
+		}
+
+		@Override
+		public void deliverError(final VolleyError error) {
+			super.deliverError(error);
+			onPageFailed(this, error);
+		}
+	}
+}
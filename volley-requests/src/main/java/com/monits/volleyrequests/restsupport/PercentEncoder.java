@@ -0,0 +1,169 @@
+/*
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.restsupport;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Percent-encodes url components as per RFC 3986, in UTF-8.
+ *
+ * Which characters are left as is depends on a lookup table per kind of component.
+ * Strings with nothing to escape, by far the most common ones, are returned as is,
+ * without allocating anything.
+ */
+/*package*/ final class PercentEncoder {
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+	private static final int ASCII_LIMIT = 0x80;
+	private static final String UNRESERVED = "-._~";
+
+	// Sub-delims plus ':' and '@', as allowed by RFC 3986 in path segments
+	private static final boolean[] PATH_SEGMENT = newTable(UNRESERVED + "!$&'()*+,;=:@");
+	private static final boolean[] PATH = newTable(UNRESERVED + "!$&'()*+,;=:@/");
+	// Query components must not include '&', '=' nor '+', which most servers decode as a space
+	private static final boolean[] QUERY = newTable(UNRESERVED + "!$'()*,;:@/?");
+
+	private PercentEncoder() {
+		throw new AssertionError("Can't instantiate this class");
+	}
+
+	/**
+	 * Encodes a single path segment, slashes included.
+	 *
+	 * @param segment The segment to encode.
+	 * @return The encoded segment.
+	 */
+	@NonNull
+	/*package*/ static String encodePathSegment(@NonNull final String segment) {
+		return encode(segment, PATH_SEGMENT);
+	}
+
+	/**
+	 * Encodes a path, which may span several segments, leaving slashes as is.
+	 *
+	 * @param path The path to encode.
+	 * @return The encoded path.
+	 */
+	@NonNull
+	/*package*/ static String encodePath(@NonNull final String path) {
+		return encode(path, PATH);
+	}
+
+	/**
+	 * Appends an encoded path segment, slashes included.
+	 *
+	 * @param sb The builder to which to append.
+	 * @param s The string holding the segment to encode.
+	 * @param start The index at which the segment starts, inclusive.
+	 * @param end The index at which the segment ends, exclusive.
+	 */
+	/*package*/ static void appendPathSegment(@NonNull final StringBuilder sb, @NonNull final String s,
+			final int start, final int end) {
+		append(sb, s, start, end, PATH_SEGMENT);
+	}
+
+	/**
+	 * Appends an encoded query parameter name or value.
+	 *
+	 * @param sb The builder to which to append.
+	 * @param component The name or value to encode.
+	 */
+	/*package*/ static void appendQueryComponent(@NonNull final StringBuilder sb, @NonNull final String component) {
+		append(sb, component, 0, component.length(), QUERY);
+	}
+
+	@NonNull
+	private static String encode(@NonNull final String s, @NonNull final boolean[] safe) {
+		final int firstUnsafe = indexOfUnsafe(s, safe);
+		if (firstUnsafe == -1) {
+			return s;
+		}
+
+		// Most escapes take 3 chars instead of 1
+		final StringBuilder sb = new StringBuilder(s.length() + 2 * (s.length() - firstUnsafe));
+		sb.append(s, 0, firstUnsafe);
+		append(sb, s, firstUnsafe, s.length(), safe);
+		return sb.toString();
+	}
+
+	private static int indexOfUnsafe(@NonNull final String s, @NonNull final boolean[] safe) {
+		final int length = s.length();
+		for (int i = 0; i < length; i++) {
+			final char c = s.charAt(i);
+			if (c >= ASCII_LIMIT || !safe[c]) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	@SuppressWarnings("checkstyle:magicnumber")
+	private static void append(@NonNull final StringBuilder sb, @NonNull final String s, final int start,
+			final int end, @NonNull final boolean[] safe) {
+		for (int i = start; i < end; i++) {
+			final char c = s.charAt(i);
+			if (c < ASCII_LIMIT) {
+				if (safe[c]) {
+					sb.append(c);
+				} else {
+					appendByte(sb, c);
+				}
+				continue;
+			}
+
+			final int codePoint = s.codePointAt(i);
+			if (codePoint < 0x800) {
+				appendByte(sb, 0xC0 | (codePoint >> 6));
+				appendByte(sb, 0x80 | (codePoint & 0x3F));
+			} else if (Character.isSupplementaryCodePoint(codePoint)) {
+				appendByte(sb, 0xF0 | (codePoint >> 18));
+				appendByte(sb, 0x80 | ((codePoint >> 12) & 0x3F));
+				appendByte(sb, 0x80 | ((codePoint >> 6) & 0x3F));
+				appendByte(sb, 0x80 | (codePoint & 0x3F));
+				i++;
+			} else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+				// Unpaired surrogate, replaced just as String.getBytes() does (isSurrogate is API 19+)
+				appendByte(sb, '?');
+			} else {
+				appendByte(sb, 0xE0 | (codePoint >> 12));
+				appendByte(sb, 0x80 | ((codePoint >> 6) & 0x3F));
+				appendByte(sb, 0x80 | (codePoint & 0x3F));
+			}
+		}
+	}
+
+	@SuppressWarnings("checkstyle:magicnumber")
+	private static void appendByte(@NonNull final StringBuilder sb, final int b) {
+		sb.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+	}
+
+	@NonNull
+	private static boolean[] newTable(@NonNull final String safeSymbols) {
+		final boolean[] table = new boolean[ASCII_LIMIT];
+		for (char c = '0'; c <= '9'; c++) {
+			table[c] = true;
+		}
+		for (char c = 'a'; c <= 'z'; c++) {
+			table[c] = true;
+			table[Character.toUpperCase(c)] = true;
+		}
+		for (int i = 0; i < safeSymbols.length(); i++) {
+			table[safeSymbols.charAt(i)] = true;
+		}
+
+		return table;
+	}
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.restsupport;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.support.annotation.NonNull;
+import android.support.v4.net.ConnectivityManagerCompat;
+
+import com.android.volley.Cache;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.RequestDecorator;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Warms the cache with requests the user is likely to make next, such as the details of
+ * the elements in a list, without competing with foreground traffic.
+ *
+ * Prefetches are sent with {@link Request.Priority#LOW} priority, and no more than a given
+ * amount of them are in flight at once, the rest wait their turn. Their responses are only
+ * stored in the cache, success and error listeners are never called.
+ *
+ * Resources whose cached response is still fresh are not prefetched.
+ *
+ * Foreground requests must be added through {@link #add(Request)}, which cancels any prefetch
+ * of the same resource, so the foreground one is not queued behind it. Canceling a prefetch
+ * leaves the prefetched request untouched, its cancel listener is not called. Prefetches bypass Volley's
+ * cache dispatcher, storing their responses themselves, so the queue never holds back requests
+ * for the same resource behind a prefetch, as it does for cacheable requests in flight.
+ *
+ * Nothing is prefetched over metered networks. This is checked both when prefetching and when
+ * waiting prefetches are sent, which requires the ACCESS_NETWORK_STATE permission.
+ */
+public class Prefetcher {
+	private final Context context;
+	private final RequestQueue queue;
+	private final int maxConcurrent;
+
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+		justification = "Already accounted for in the toString with the pending and in flight ones")
+	private final Map<String, PrefetchRequest<?>> prefetches = new HashMap<>();
+	private final Queue<PrefetchRequest<?>> pending = new ArrayDeque<>();
+	private int inFlight;
+
+	/**
+	 * Creates a new Prefetcher.
+	 *
+	 * @param context The context used to check the network, its application context is retained.
+	 * @param queue The queue to which both prefetches and foreground requests are added.
+	 * @param maxConcurrent The maximum amount of prefetches in flight at once.
+	 */
+	public Prefetcher(@NonNull final Context context, @NonNull final RequestQueue queue,
+			final int maxConcurrent) {
+		if (maxConcurrent < 1) {
+			throw new IllegalArgumentException("Max concurrent prefetches must be positive, got "
+					+ maxConcurrent);
+		}
+
+		this.context = context.getApplicationContext();
+		this.queue = queue;
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	/**
+	 * Prefetches the request built by the given builder.
+	 *
+	 * @param builder The builder of the request to be prefetched.
+	 * @return True if the request is prefetched, false if the network is metered,
+	 *         the cached response is still fresh, or the same resource is already being prefetched.
+	 * @see #prefetch(Request)
+	 */
+	public boolean prefetch(@NonNull final RequestBuilder<?, ?> builder) {
+		return prefetch(builder.request());
+	}
+
+	/**
+	 * Prefetches the given request. Its success and error listeners are never called.
+	 *
+	 * @param request The request to be prefetched, which must be a cacheable GET / HEAD.
+	 * @return True if the request is prefetched, false if the network is metered,
+	 *         the cached response is still fresh, or the same resource is already being prefetched.
+	 */
+	public boolean prefetch(@NonNull final Request<?> request) {
+		final int method = request.getMethod();
+		if ((method != Request.Method.GET && method != Request.Method.HEAD) || !request.shouldCache()) {
+			throw new IllegalArgumentException("Only cacheable GET / HEAD requests can be prefetched, got "
+					+ request);
+		}
+
+		if (isNetworkMetered()) {
+			return false;
+		}
+
+		// Prefetches skip the cache dispatcher, so fresh responses must be looked up here
+		final String key = request.getCacheKey();
+		final Cache.Entry entry = queue.getCache().get(key);
+		if (entry != null && !entry.refreshNeeded()) {
+			return false;
+		}
+
+		synchronized (this) {
+			if (prefetches.containsKey(key)) {
+				return false;
+			}
+
+			final PrefetchRequest<?> prefetch = new PrefetchRequest<>(request);
+			prefetches.put(key, prefetch);
+			pending.add(prefetch);
+		}
+
+		dispatch();
+		return true;
+	}
+
+	/**
+	 * Adds a foreground request to the queue, canceling any prefetch of the same resource.
+	 *
+	 * @param request The request to be added.
+	 * @param <T> The type of the response.
+	 * @return The given request.
+	 */
+	@NonNull
+	public <T> Request<T> add(@NonNull final Request<T> request) {
+		PrefetchRequest<?> canceled = null;
+		synchronized (this) {
+			final PrefetchRequest<?> prefetch = prefetches.remove(request.getCacheKey());
+			if (prefetch != null && !pending.remove(prefetch)) {
+				canceled = prefetch;
+			}
+		}
+
+		// Requests are canceled out of the lock, the queue may call back into us
+		if (canceled != null) {
+			canceled.cancel();
+		}
+
+		queue.add(request);
+		return request;
+	}
+
+	/**
+	 * Cancels all prefetches, both waiting and in flight.
+	 */
+	public void cancelAll() {
+		final List<PrefetchRequest<?>> canceled = new ArrayList<>();
+		synchronized (this) {
+			for (final PrefetchRequest<?> prefetch : prefetches.values()) {
+				if (!pending.contains(prefetch)) {
+					canceled.add(prefetch);
+				}
+			}
+			prefetches.clear();
+			pending.clear();
+		}
+
+		for (final PrefetchRequest<?> prefetch : canceled) {
+			prefetch.cancel();
+		}
+	}
+
+	/**
+	 * Checks whether the active network is metered, in which case nothing is prefetched.
+	 *
+	 * @return True if the active network is metered, or there is none.
+	 */
+	protected boolean isNetworkMetered() {
+		final ConnectivityManager connectivityManager =
+				(ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+		return ConnectivityManagerCompat.isActiveNetworkMetered(connectivityManager);
+	}
+
+	private void dispatch() {
+		final List<PrefetchRequest<?>> dispatched = new ArrayList<>();
+		synchronized (this) {
+			if (!pending.isEmpty() && inFlight < maxConcurrent && isNetworkMetered()) {
+				// The network changed since these were prefetched
+				for (final PrefetchRequest<?> prefetch : pending) {
+					prefetches.remove(prefetch.getCacheKey());
+				}
+				pending.clear();
+			}
+
+			while (inFlight < maxConcurrent && !pending.isEmpty()) {
+				inFlight++;
+				dispatched.add(pending.poll());
+			}
+		}
+
+		for (final PrefetchRequest<?> prefetch : dispatched) {
+			queue.add(prefetch);
+		}
+	}
+
+	/*package*/ void onFinished(@NonNull final PrefetchRequest<?> prefetch) {
+		synchronized (this) {
+			inFlight--;
+
+			// A foreground request may have already replaced it
+			final String key = prefetch.getCacheKey();
+			if (prefetches.get(key) == prefetch) {
+				prefetches.remove(key);
+			}
+		}
+
+		dispatch();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "Prefetcher{ maxConcurrent=" + maxConcurrent
+			+ ", inFlight=" + inFlight
+			+ ", pending=" + pending.size()
+			+ " }";
+	}
+
+	/**
+	 * A low priority request whose response is only stored in the cache.
+	 *
+	 * Just as {@link com.monits.volleyrequests.network.request.CachePolicy#NETWORK_ONLY} requests,
+	 * it skips Volley's cache dispatcher, looking up the cached entry to be revalidated by itself,
+	 * and storing the response in the cache by itself.
+	 *
+	 * Canceling it does not cancel the wrapped request, which belongs to the caller.
+	 *
+	 * @param <T> The type of the response.
+	 */
+	/*package*/ class PrefetchRequest<T> extends RequestDecorator<T> {
+		private volatile boolean cacheEntryLookedUp;
+		private volatile boolean cancelled;
+
+		/*package*/ PrefetchRequest(@NonNull final Request<T> request) {
+			super(request);
+
+			// Otherwise the queue holds foreground requests for the same resource behind this one
+			setShouldCache(false);
+		}
+
+		@Override
+		public Priority getPriority() {
+			return Priority.LOW;
+		}
+
+		@Override
+		public void cancel() {
+			// Superseded by a foreground request, or dropped, the caller's listeners must not be told
+			cancelled = true;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return cancelled || super.isCanceled();
+		}
+
+		@Override
+		public Cache.Entry getCacheEntry() {
+			// Asked for by the network on its dispatcher thread, right before sending the request
+			if (!cacheEntryLookedUp) {
+				cacheEntryLookedUp = true;
+				setCacheEntry(queue.getCache().get(getCacheKey()));
+			}
+
+			return super.getCacheEntry();
+		}
+
+		@Override
+		protected Response<T> parseNetworkResponse(final NetworkResponse response) {
+			final Response<T> parsed = super.parseNetworkResponse(response);
+
+			// The network dispatcher doesn't store responses of requests that shouldn't be cached
+			if (parsed.isSuccess() && parsed.cacheEntry != null) {
+				queue.getCache().put(getCacheKey(), parsed.cacheEntry);
+			}
+
+			return parsed;
+		}
+
+		@Override
+		protected void deliverResponse(final T response) {
+			// Already stored in the cache when parsed
+		}
+
+		@Override
+		public void deliverError(final VolleyError error) {
+			// Nobody is waiting for it
+		}
+
+		@Override
+		protected void onFinish() {
+			onFinished(this);
+		}
+	}
+}
@@ -20,7 +20,10 @@ import android.support.annotation.Nullable;
 
 import com.android.volley.Request;
 import com.android.volley.Response;
+import com.monits.volleyrequests.network.request.CacheKeyStrategy;
+import com.monits.volleyrequests.network.request.CachePolicy;
 import com.monits.volleyrequests.network.request.ListenableRequest.CancelListener;
+import com.monits.volleyrequests.network.request.MultipartBody;
 
 import java.util.Map;
 
@@ -54,6 +57,10 @@ public interface RequestBuilder<T, S> {
 	/**
 	 * Adds / overwrites the given query parameter.
 	 *
+	 * Names and values must not be encoded, they are percent-encoded when building the url.
+	 * Parameters are sorted by name, so the same parameters always yield the same url,
+	 * and therefore the same cache entry, no matter the order in which they are given.
+	 *
 	 * @param param The name of the query parameter.
 	 * @param value The value to be associated with the parameter.
 	 * @return The RequestBuilder, for a fluid programming interface.
@@ -62,7 +69,19 @@ public interface RequestBuilder<T, S> {
 	RequestBuilder<T, S> query(@NonNull String param, @NonNull String value);
 
 	/**
-	 * Adds / overwrites query parameters.
+	 * Adds / overwrites a query parameter with several values, such as <code>id=1&amp;id=2&amp;id=3</code>.
+	 * Values are converted to strings through {@link String#valueOf(Object)}, and encoded
+	 * as in {@link #query(String, String)}, keeping the given order.
+	 *
+	 * @param param The name of the query parameter.
+	 * @param values The values to be associated with the parameter, at least one.
+	 * @return The RequestBuilder, for a fluid programming interface.
+	 */
+	@NonNull
+	RequestBuilder<T, S> query(@NonNull String param, @NonNull Object... values);
+
+	/**
+	 * Adds / overwrites query parameters, encoded as in {@link #query(String, String)}.
 	 *
 	 * @param queryParams The collection of query params to be added. Keys are param names,
 	 *                    and values their corresponding values.
@@ -71,6 +90,47 @@ public interface RequestBuilder<T, S> {
 	@NonNull
 	RequestBuilder<T, S> query(@NonNull Map<String, String> queryParams);
 
+	/**
+	 * Requests only the given fields of the resource, through the query parameter set with
+	 * {@link Rest#setProjectionParams(String, String)}. Fields are sorted, so the same projection
+	 * always yields the same url, and therefore the same cache entry, no matter the order in which
+	 * they are given. Different projections never share cache entries.
+	 *
+	 * Calling this method more than once adds fields to the projection.
+	 *
+	 * @param fields The names of the fields to be retrieved.
+	 * @return The RequestBuilder, for a fluid programming interface.
+	 */
+	@NonNull
+	RequestBuilder<T, S> fields(@NonNull String... fields);
+
+	/**
+	 * Requests only the fields declared by the type into which the response is decoded, as in
+	 * {@link #fields(String...)}. This allows to retrieve a smaller view of a resource,
+	 * by decoding it into a class declaring just the fields that are needed.
+	 *
+	 * Fields are named after their {@link com.google.gson.annotations.SerializedName} annotation,
+	 * or their name when absent. Static and transient fields are skipped.
+	 * Any other field naming policy set on gson must be matched with {@link #fields(String...)} instead.
+	 *
+	 * @return The RequestBuilder, for a fluid programming interface.
+	 */
+	@NonNull
+	RequestBuilder<T, S> project();
+
+	/**
+	 * Requests related resources to be included in the response, through the query parameter set
+	 * with {@link Rest#setProjectionParams(String, String)}. Relations are sorted as in
+	 * {@link #fields(String...)}.
+	 *
+	 * Calling this method more than once adds relations to be included.
+	 *
+	 * @param relations The names of the related resources to be included.
+	 * @return The RequestBuilder, for a fluid programming interface.
+	 */
+	@NonNull
+	RequestBuilder<T, S> include(@NonNull String... relations);
+
 	/**
 	 * Sets a success listener for the request.
 	 *
@@ -107,6 +167,45 @@ public interface RequestBuilder<T, S> {
 	@NonNull
 	RequestBuilder<T, S> onCancel(@Nullable CancelListener listener);
 
+	/**
+	 * Sets a multipart body to be sent instead of a json one, such as several files along
+	 * with their metadata.
+	 *
+	 * Calling this method more than once overwrites the value.
+	 * Passing null simply goes back to a json body.
+	 *
+	 * @param body The multipart body to be sent.
+	 * @return The RequestBuilder, for a fluid programming interface.
+	 */
+	@NonNull
+	RequestBuilder<T, S> multipart(@Nullable MultipartBody body);
+
+	/**
+	 * Sets how the request makes use of the cache. Only GET / HEAD requests are ever served from cache.
+	 *
+	 * Calling this method more than once overwrites the value.
+	 * Passing null simply goes back to {@link CachePolicy#CACHE_FIRST}.
+	 *
+	 * @param cachePolicy The cache policy to be used.
+	 * @return The RequestBuilder, for a fluid programming interface.
+	 */
+	@NonNull
+	RequestBuilder<T, S> cachePolicy(@Nullable CachePolicy cachePolicy);
+
+	/**
+	 * Sets the strategy deciding the key under which the response is cached, such as a
+	 * {@link com.monits.volleyrequests.network.request.HeaderCacheKeyStrategy} keeping apart
+	 * responses varying on Accept-Language.
+	 *
+	 * Calling this method more than once overwrites the value.
+	 * Passing null simply goes back to keying responses by url.
+	 *
+	 * @param cacheKeyStrategy The cache key strategy to be used.
+	 * @return The RequestBuilder, for a fluid programming interface.
+	 */
+	@NonNull
+	RequestBuilder<T, S> cacheKey(@Nullable CacheKeyStrategy cacheKeyStrategy);
+
 	/**
 	 * Retrieves the url to be requested. This includes not only the path, but also query parameters
 	 *
@@ -21,6 +21,7 @@ import android.support.annotation.Nullable;
 import com.android.volley.Request;
 import com.google.gson.Gson;
 import com.monits.volleyrequests.network.request.GsonRequest;
+import com.monits.volleyrequests.network.request.ParsedResponseCache;
 
 /**
  * Entry point for defining and handling REST resources and generating requests easily.
@@ -30,6 +31,9 @@ public final class Rest {
 	private static String baseUrl;
 	private static Gson gson;
 	private static String elementsKey;
+	private static ParsedResponseCache parsedResponseCache;
+	private static String fieldsParam = "fields";
+	private static String includeParam = "include";
 
 	/**
 	 * An interceptor that can alter a request generated by the REST infrastructure.
@@ -103,6 +107,42 @@ public final class Rest {
 		return Rest.elementsKey;
 	}
 
+	/**
+	 * Sets a cache of parsed responses to be used by all requests generated by the REST
+	 * infrastructure, so responses served from the same cache entry are not deserialized again.
+	 *
+	 * @param parsedResponseCache The cache to be used, or null to always deserialize responses.
+	 */
+	public static void setParsedResponseCache(@Nullable final ParsedResponseCache parsedResponseCache) {
+		Rest.parsedResponseCache = parsedResponseCache;
+	}
+
+	/* package */ static ParsedResponseCache getParsedResponseCache() {
+		return Rest.parsedResponseCache;
+	}
+
+	/**
+	 * Sets the query parameters with which the API takes sparse fieldsets and related resources to
+	 * be included, see {@link RequestBuilder#fields(String...)} and {@link RequestBuilder#include(String...)}.
+	 *
+	 * Defaults to "fields" and "include", such as in "?fields=id,name&amp;include=author".
+	 *
+	 * @param fieldsParam The name of the query parameter listing the fields to be retrieved.
+	 * @param includeParam The name of the query parameter listing the related resources to be included.
+	 */
+	public static void setProjectionParams(@NonNull final String fieldsParam, @NonNull final String includeParam) {
+		Rest.fieldsParam = fieldsParam;
+		Rest.includeParam = includeParam;
+	}
+
+	/* package */ static String getFieldsParam() {
+		return Rest.fieldsParam;
+	}
+
+	/* package */ static String getIncludeParam() {
+		return Rest.includeParam;
+	}
+
 	/**
 	 * Moves down the REST API tree down to a specific top level element.
 	 *
@@ -153,7 +193,7 @@ public final class Rest {
 	@NonNull
 	public static UrlBuilder.ElementUrlBuilder one(@NonNull final String route, @NonNull final String id,
 			@NonNull final Gson gson) {
-		return oneUrl(formatUrl(route, id), baseUrl, gson);
+		return new RestElement<>(formatElementUrl(baseUrl, route, id), gson, Void.class);
 	}
 
 	/**
@@ -241,9 +281,34 @@ public final class Rest {
 	}
 
 	/**
-	 * Appends a series of segments to the given base url.
+	 * Starts a batch of requests, to be sent in a single round trip to the given batch endpoint.
 	 *
-	 * @param baseUrl The base url to which to append segments.
+	 * @param route The route to the batch endpoint, such as "batch".
+	 * @return A builder to which requests can be added.
+	 */
+	@NonNull
+	public static BatchRequestBuilder batch(@NonNull final String route) {
+		return batchUrl(route, baseUrl);
+	}
+
+	/**
+	 * Starts a batch of requests, to be sent in a single round trip to the given batch endpoint.
+	 *
+	 * @param route The route to the batch endpoint, such as "batch".
+	 * @param url The base url to be used instead of the default one.
+	 * @return A builder to which requests can be added.
+	 */
+	@NonNull
+	public static BatchRequestBuilder batchUrl(@NonNull final String route, @NonNull final String url) {
+		return new BatchRequestBuilder(formatUrl(url, route));
+	}
+
+	/**
+	 * Appends a series of segments to the given base url. Segments are percent-encoded,
+	 * except for slashes, so they may span several path segments, such as "users/me".
+	 * Empty segments are dropped, so leading, trailing or repeated slashes yield the same url.
+	 *
+	 * @param baseUrl The base url to which to append segments, already encoded.
 	 * @param segments The segments to be appended, separated with '/'.
 	 * @return The formatted url.
 	 */
@@ -258,9 +323,43 @@ public final class Rest {
 		final StringBuilder sb = new StringBuilder(expectedLength).append(baseUrl);
 
 		for (final String segment : segments) {
-			sb.append('/').append(segment);
+			appendPath(sb, segment);
 		}
 
 		return sb.toString();
 	}
+
+	private static void appendPath(@NonNull final StringBuilder sb, @NonNull final String path) {
+		final int length = path.length();
+		int start = 0;
+		while (start < length) {
+			int end = path.indexOf('/', start);
+			if (end == -1) {
+				end = length;
+			}
+
+			if (end > start) {
+				if (sb.length() == 0 || sb.charAt(sb.length() - 1) != '/') {
+					sb.append('/');
+				}
+				PercentEncoder.appendPathSegment(sb, path, start, end);
+			}
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * Appends the route to an element and its id to the given base url. Unlike the route,
+	 * the id is always encoded as a single path segment, slashes included.
+	 *
+	 * @param baseUrl The base url to which to append the route, already encoded.
+	 * @param route The route to the collection to which the element belongs.
+	 * @param id The id of the element.
+	 * @return The formatted url.
+	 */
+	@NonNull
+	/*package*/ static String formatElementUrl(@NonNull final String baseUrl, @NonNull final String route,
+			@NonNull final String id) {
+		return formatUrl(baseUrl, route) + '/' + PercentEncoder.encodePathSegment(id);
+	}
 }
@@ -21,13 +21,25 @@ import android.support.annotation.Nullable;
 import com.android.volley.Request;
 import com.android.volley.Response;
 import com.google.gson.Gson;
+import com.google.gson.annotations.SerializedName;
+import com.monits.volleyrequests.network.request.CacheKeyStrategy;
+import com.monits.volleyrequests.network.request.CachePolicy;
+import com.monits.volleyrequests.network.request.GsonMultipartRequest;
 import com.monits.volleyrequests.network.request.ListenableRequest.CancelListener;
 import com.monits.volleyrequests.network.request.GsonRequest;
+import com.monits.volleyrequests.network.request.MultipartBody;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -40,14 +52,21 @@ public abstract class RestBase<T, S> implements UrlBuilder, RequestBuilder<T, S>
 			justification = "No need to use in the toString")
 	protected final Class<T> type;
 
-	private final Map<String, String> queryParams = new HashMap<>();
+	// Sorted, so the same params always yield the same url, and therefore the same cache entry
+	private final Map<String, List<String>> queryParams = new TreeMap<>();
 	private final Map<String, String> headers = new HashMap<>();
+	private final Set<String> fields = new TreeSet<>();
+	private final Set<String> includes = new TreeSet<>();
 
 	protected int method;
 	protected T obj;
 	private Response.Listener<S> listener;
 	private Response.ErrorListener errorListener;
 	private CancelListener cancelListener;
+	private MultipartBody multipartBody;
+	private String collectionUrl;
+	private CachePolicy cachePolicy;
+	private CacheKeyStrategy cacheKeyStrategy;
 
 
 	/*package*/ RestBase(final String url, final Gson gson, final Class<T> type) {
@@ -58,6 +77,19 @@ public abstract class RestBase<T, S> implements UrlBuilder, RequestBuilder<T, S>
 
 	protected abstract Type getDecodeType(Class<T> type);
 
+	/**
+	 * Creates a new, unconfigured builder of the same kind as this one, so no request fields are copied.
+	 *
+	 * @param url The url of the new builder.
+	 * @param gson The gson instance to be used by the new builder.
+	 * @param clazz The type of objects submitted and retrieved by the new builder.
+	 * @param <U> The type of objects submitted and retrieved by the new builder.
+	 * @return The new builder.
+	 */
+	@NonNull
+	protected abstract <U> RestBase<U, ?> newInstance(@NonNull String url, @NonNull Gson gson,
+			@NonNull Class<U> clazz);
+
 	@NonNull
 	@Override
 	public RequestBuilder<T, S> header(@NonNull final String header, @NonNull final String value) {
@@ -75,14 +107,62 @@ public abstract class RestBase<T, S> implements UrlBuilder, RequestBuilder<T, S>
 	@NonNull
 	@Override
 	public RequestBuilder<T, S> query(@NonNull final String param, @NonNull final String value) {
-		queryParams.put(param, value);
+		queryParams.put(param, Collections.singletonList(value));
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public RequestBuilder<T, S> query(@NonNull final String param, @NonNull final Object... values) {
+		if (values.length == 0) {
+			throw new IllegalArgumentException("At least one value is required for query param " + param);
+		}
+
+		final List<String> list = new ArrayList<>(values.length);
+		for (final Object value : values) {
+			list.add(String.valueOf(value));
+		}
+		queryParams.put(param, list);
 		return this;
 	}
 
 	@NonNull
 	@Override
 	public RequestBuilder<T, S> query(@NonNull final Map<String, String> params) {
-		queryParams.putAll(params);
+		for (final Map.Entry<String, String> entry : params.entrySet()) {
+			query(entry.getKey(), entry.getValue());
+		}
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public RequestBuilder<T, S> fields(@NonNull final String... fields) {
+		Collections.addAll(this.fields, fields);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public RequestBuilder<T, S> project() {
+		for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+			for (final Field field : clazz.getDeclaredFields()) {
+				if (field.isSynthetic()
+						|| (field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) != 0) {
+					continue;
+				}
+
+				final SerializedName serializedName = field.getAnnotation(SerializedName.class);
+				fields.add(serializedName == null ? field.getName() : serializedName.value());
+			}
+		}
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public RequestBuilder<T, S> include(@NonNull final String... relations) {
+		Collections.addAll(includes, relations);
 		return this;
 	}
 
@@ -126,6 +206,7 @@ public abstract class RestBase<T, S> implements UrlBuilder, RequestBuilder<T, S>
 		@SuppressWarnings("unchecked")
 		final RestBase<U, U> rb = new RestElement<>(url, gson, clazz);
 		rb.method = method;
+		rb.collectionUrl = getCollectionUrl();
 
 		return rb;
 	}
@@ -192,22 +273,11 @@ public abstract class RestBase<T, S> implements UrlBuilder, RequestBuilder<T, S>
 				Request.Method.PATCH);
 	}
 
-	@SuppressWarnings("PMD.PreserveStackTrace") // Until API level 21, it can't be done
 	@NonNull
 	@Override
 	public <U> RequestBuilder<U, ?> method(final int method, @NonNull final Class<U> clazz) {
-		final RestBase<U, ?> restBase;
-
 		// We want a new instance so we are sure we are not copying any request fields
-		try {
-			// All subclasses MUST have a constructor with the same fields as ourselves
-			//noinspection unchecked
-			restBase = getClass().getDeclaredConstructor(String.class, Gson.class, Class.class)
-					.newInstance(url, gson, clazz);
-		} catch (final InstantiationException | IllegalAccessException
-				| InvocationTargetException | NoSuchMethodException e) {
-			throw new AssertionError("Could not initialize new RestBase element for " + this);
-		}
+		final RestBase<U, ?> restBase = newInstance(url, gson, clazz);
 		restBase.method = method;
 		return restBase;
 	}
@@ -218,6 +288,8 @@ public abstract class RestBase<T, S> implements UrlBuilder, RequestBuilder<T, S>
 			+ "{ url='" + url + '\''
 			+ ", queryParams=" + queryParams
 			+ ", headers=" + headers
+			+ ", fields=" + fields
+			+ ", includes=" + includes
 			+ ", method=" + method
 			+ " }";
 	}
@@ -243,12 +315,59 @@ public abstract class RestBase<T, S> implements UrlBuilder, RequestBuilder<T, S>
 		return this;
 	}
 
+	@NonNull
+	@Override
+	public RequestBuilder<T, S> multipart(@Nullable final MultipartBody body) {
+		this.multipartBody = body;
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public RequestBuilder<T, S> cachePolicy(@Nullable final CachePolicy cachePolicy) {
+		this.cachePolicy = cachePolicy;
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public RequestBuilder<T, S> cacheKey(@Nullable final CacheKeyStrategy cacheKeyStrategy) {
+		this.cacheKeyStrategy = cacheKeyStrategy;
+		return this;
+	}
+
 	@NonNull
 	@Override
 	public Request<S> request() {
-		final String jsonBody = obj == null ? null : gson.toJson(obj);
-		final GsonRequest<S> request = new GsonRequest<>(method, getRequestUrl(), this.gson,
-				getDecodeType(type), listener, errorListener, cancelListener, jsonBody);
+		return request(getRequestUrl());
+	}
+
+	/**
+	 * Create the configured request, for the given url instead of the one being built.
+	 *
+	 * @param requestUrl The url to be requested, including query parameters.
+	 * @return The generated request.
+	 */
+	@NonNull
+	/*package*/ Request<S> request(@NonNull final String requestUrl) {
+		final GsonRequest<S> request;
+		if (multipartBody == null) {
+			request = createRequest(requestUrl, getDecodeType(type),
+					listener, errorListener, cancelListener, obj);
+		} else {
+			request = createMultipartRequest(requestUrl, getDecodeType(type),
+					listener, errorListener, cancelListener, multipartBody);
+		}
+
+		request.setParsedResponseCache(Rest.getParsedResponseCache());
+		if (cachePolicy != null) {
+			request.setCachePolicy(cachePolicy);
+		}
+		request.setCacheKeyStrategy(cacheKeyStrategy);
+
+		// Unsafe methods leave stale both the resource without query params and its collection
+		addInvalidatedUrl(request, url);
+		addInvalidatedUrl(request, getCollectionUrl());
 
 		// Add headers
 		for (final Map.Entry<String, String> entry : headers.entrySet()) {
@@ -268,6 +387,64 @@ public abstract class RestBase<T, S> implements UrlBuilder, RequestBuilder<T, S>
 		return decorateRequest(r);
 	}
 
+	/**
+	 * Creates the request to be configured. The default implementation returns a {@link GsonRequest}.
+	 *
+	 * @param requestUrl The url to be requested, including query parameters.
+	 * @param decodeType The type into which to decode the response.
+	 * @param listener The listener for success.
+	 * @param errorListener The listener for errors.
+	 * @param cancelListener The listener for cancel.
+	 * @param body The object to be sent as json in the request's body.
+	 * @return The created request.
+	 */
+	@NonNull
+	protected GsonRequest<S> createRequest(@NonNull final String requestUrl,
+			@NonNull final Type decodeType, @Nullable final Response.Listener<S> listener,
+			@Nullable final Response.ErrorListener errorListener,
+			@Nullable final CancelListener cancelListener, @Nullable final Object body) {
+		return new GsonRequest<>(method, requestUrl, gson, decodeType, listener, errorListener,
+				cancelListener, body);
+	}
+
+	/**
+	 * Creates the request to be configured when a multipart body is set.
+	 * The default implementation returns a {@link GsonMultipartRequest}.
+	 *
+	 * @param requestUrl The url to be requested, including query parameters.
+	 * @param decodeType The type into which to decode the response.
+	 * @param listener The listener for success.
+	 * @param errorListener The listener for errors.
+	 * @param cancelListener The listener for cancel.
+	 * @param body The multipart body to be sent.
+	 * @return The created request.
+	 */
+	@NonNull
+	protected GsonRequest<S> createMultipartRequest(@NonNull final String requestUrl,
+			@NonNull final Type decodeType, @Nullable final Response.Listener<S> listener,
+			@Nullable final Response.ErrorListener errorListener,
+			@Nullable final CancelListener cancelListener, @NonNull final MultipartBody body) {
+		return new GsonMultipartRequest<>(method, requestUrl, gson, decodeType, listener, errorListener,
+				cancelListener, body);
+	}
+
+	/**
+	 * Retrieves the url of the collection to which the requested resource belongs,
+	 * whose cached responses become stale after any unsafe request.
+	 *
+	 * @return The url of the collection, or null if there is none.
+	 */
+	@Nullable
+	protected String getCollectionUrl() {
+		return collectionUrl;
+	}
+
+	private static void addInvalidatedUrl(@NonNull final GsonRequest<?> request, @Nullable final String url) {
+		if (url != null && !url.equals(request.getUrl())) {
+			request.addInvalidatedUrl(url);
+		}
+	}
+
 	@NonNull
 	protected abstract Request<S> decorateRequest(@NonNull Request<S> request);
 
@@ -286,13 +463,13 @@ public abstract class RestBase<T, S> implements UrlBuilder, RequestBuilder<T, S>
 	@NonNull
 	@Override
 	public CollectionUrlBuilder several(@NonNull final String route, @NonNull final String... ids) {
-		final StringBuilder sb = new StringBuilder(route).append('/');
+		final StringBuilder sb = new StringBuilder(Rest.formatUrl(url, route)).append('/');
 		final int lastIndex = ids.length - 1;
 		for (int i = 0; i < lastIndex; i++) {
-			sb.append(ids[i]).append(',');
+			sb.append(PercentEncoder.encodePathSegment(ids[i])).append(',');
 		}
-		sb.append(ids[lastIndex]);
-		return all(sb.toString());
+		sb.append(PercentEncoder.encodePathSegment(ids[lastIndex]));
+		return new RestCollection<>(sb.toString(), gson, type);
 	}
 
 	@NonNull
@@ -316,7 +493,7 @@ public abstract class RestBase<T, S> implements UrlBuilder, RequestBuilder<T, S>
 	@NonNull
 	@Override
 	public ElementUrlBuilder one(@NonNull final String route, @NonNull final String id) {
-		return new RestElement<>(Rest.formatUrl(url, route, id), gson, type);
+		return new RestElement<>(Rest.formatElementUrl(url, route, id), gson, type);
 	}
 
 	@NonNull
@@ -328,21 +505,54 @@ public abstract class RestBase<T, S> implements UrlBuilder, RequestBuilder<T, S>
 	@NonNull
 	@Override
 	public String getRequestUrl() {
-		if (queryParams.isEmpty()) {
+		final Map<String, List<String>> params = getQueryParams();
+		if (params.isEmpty()) {
 			return url;
 		}
 
 		// Initialize a string builder with a guesstimate of the expected length
 		@SuppressWarnings("checkstyle:magicnumber")
-		final StringBuilder sb = new StringBuilder(url.length() + 10 * queryParams.size());
-		sb.append(url).append('?');
-		int elementsLeft = queryParams.size();
-		for (final Map.Entry<String, String> entry : queryParams.entrySet()) {
-			sb.append(entry.getKey()).append('=')
-					.append(entry.getValue());
-			if (--elementsLeft > 0) {
-				sb.append('&');
+		final StringBuilder sb = new StringBuilder(url.length() + 10 * params.size());
+		sb.append(url);
+		char separator = '?';
+		for (final Map.Entry<String, List<String>> entry : params.entrySet()) {
+			for (final String value : entry.getValue()) {
+				sb.append(separator);
+				PercentEncoder.appendQueryComponent(sb, entry.getKey());
+				sb.append('=');
+				PercentEncoder.appendQueryComponent(sb, value);
+				separator = '&';
+			}
+		}
+
+		return sb.toString();
+	}
+
+	@NonNull
+	private Map<String, List<String>> getQueryParams() {
+		if (fields.isEmpty() && includes.isEmpty()) {
+			return queryParams;
+		}
+
+		final Map<String, List<String>> params = new TreeMap<>(queryParams);
+		if (!fields.isEmpty()) {
+			params.put(Rest.getFieldsParam(), Collections.singletonList(join(fields)));
+		}
+		if (!includes.isEmpty()) {
+			params.put(Rest.getIncludeParam(), Collections.singletonList(join(includes)));
+		}
+
+		return params;
+	}
+
+	@NonNull
+	private static String join(@NonNull final Set<String> values) {
+		final StringBuilder sb = new StringBuilder();
+		for (final String value : values) {
+			if (sb.length() > 0) {
+				sb.append(',');
 			}
+			sb.append(value);
 		}
 
 		return sb.toString();
@@ -16,15 +16,27 @@
 package com.monits.volleyrequests.restsupport;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.android.volley.JSONArrayRequestDecorator;
 import com.android.volley.Request;
-import com.google.common.reflect.TypeParameter;
-import com.google.common.reflect.TypeToken;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
 import com.google.gson.Gson;
+import com.monits.volleyrequests.network.request.CacheKeyStrategy;
+import com.monits.volleyrequests.network.request.CachePolicy;
+import com.monits.volleyrequests.network.request.ChunkedGsonListRequest;
+import com.monits.volleyrequests.network.request.ChunkedGsonListRequest.ChunkListener;
+import com.monits.volleyrequests.network.request.ContainerTypes;
+import com.monits.volleyrequests.network.request.GsonEnvelopeRequest;
+import com.monits.volleyrequests.network.request.GsonEnvelopeRequest.MetadataListener;
+import com.monits.volleyrequests.network.request.GsonRequest;
+import com.monits.volleyrequests.network.request.ListenableRequest.CancelListener;
+import com.monits.volleyrequests.network.request.MultipartBody;
 
 import java.lang.reflect.Type;
 import java.util.List;
+import java.util.Map;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -38,34 +50,208 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 		justification = "Tight coupling is intended, we just use different interfaces to direct"
 				+ " the method calls flow")
 public class RestCollection<T> extends RestBase<T, List<T>>
-		implements UrlBuilder.CollectionUrlBuilder {
+		implements UrlBuilder.CollectionUrlBuilder, CollectionRequestBuilder<T> {
+
+	private MetadataListener metadataListener;
+	private ChunkListener<T> chunkListener;
+	private int chunkSize;
 
 	/*package*/ RestCollection(final String url, final Gson gson, final Class<T> clazz) {
 		super(url, gson, clazz);
 	}
 
+	@NonNull
+	@Override
+	protected <U> RestCollection<U> newInstance(@NonNull final String url, @NonNull final Gson gson,
+			@NonNull final Class<U> clazz) {
+		return new RestCollection<>(url, gson, clazz);
+	}
+
 	@Override
 	protected Type getDecodeType(final Class<T> type) {
-		return new TypeToken<List<T>>() { }
-				.where(new TypeParameter<T>() {
-				}, TypeToken.of(type)).getType();
+		return ContainerTypes.listOf(type);
 	}
 
 	@NonNull
 	@Override
-	protected Request<List<T>> decorateRequest(@NonNull final Request<List<T>> request) {
+	protected String getCollectionUrl() {
+		return url;
+	}
+
+	@NonNull
+	@Override
+	protected GsonRequest<List<T>> createRequest(@NonNull final String requestUrl,
+			@NonNull final Type decodeType, @Nullable final Response.Listener<List<T>> listener,
+			@Nullable final Response.ErrorListener errorListener,
+			@Nullable final CancelListener cancelListener, @Nullable final Object body) {
+		if (chunkListener != null) {
+			// Envelopes, if any, are unwrapped by decorateRequest
+			return new ChunkedGsonListRequest<>(method, requestUrl, gson, type, chunkSize, chunkListener,
+					listener, errorListener, cancelListener, body);
+		}
+
 		final String elementsKey = Rest.getElementsKey();
 		if (elementsKey == null) {
-			return request;
+			return super.createRequest(requestUrl, decodeType, listener, errorListener,
+					cancelListener, body);
 		}
-		return new JSONArrayRequestDecorator<>(request, elementsKey);
+
+		// Unwrap the envelope while deserializing, in a single pass
+		final GsonEnvelopeRequest<T> request = new GsonEnvelopeRequest<>(method, requestUrl, gson,
+				decodeType, elementsKey, listener, errorListener, cancelListener, body);
+		request.setMetadataListener(metadataListener);
+		return request;
+	}
+
+	@NonNull
+	@Override
+	protected Request<List<T>> decorateRequest(@NonNull final Request<List<T>> request) {
+		final String elementsKey = Rest.getElementsKey();
+		if (chunkListener != null && elementsKey != null) {
+			return new JSONArrayRequestDecorator<>(request, elementsKey);
+		}
+
+		return request;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> onMetadata(@Nullable final MetadataListener listener) {
+		this.metadataListener = listener;
+		return this;
+	}
+
+	/**
+	 * Retrieves the listener set through {@link #onMetadata(MetadataListener)}.
+	 *
+	 * @return The metadata listener, or null if there is none.
+	 */
+	@Nullable
+	/*package*/ MetadataListener getMetadataListener() {
+		return metadataListener;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> onChunk(final int chunkSize, @Nullable final ChunkListener<T> listener) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive, got " + chunkSize);
+		}
+
+		this.chunkSize = chunkSize;
+		this.chunkListener = listener;
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public Pager<T> paged(@NonNull final RequestQueue queue, @NonNull final Pager.PageListener<T> listener) {
+		return new Pager<>(this, queue, listener);
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> header(@NonNull final String header, @NonNull final String value) {
+		super.header(header, value);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> headers(@NonNull final Map<String, String> headers) {
+		super.headers(headers);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> query(@NonNull final String param, @NonNull final String value) {
+		super.query(param, value);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> query(@NonNull final String param, @NonNull final Object... values) {
+		super.query(param, values);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> query(@NonNull final Map<String, String> params) {
+		super.query(params);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> fields(@NonNull final String... fields) {
+		super.fields(fields);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> project() {
+		super.project();
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> include(@NonNull final String... relations) {
+		super.include(relations);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> onSuccess(@Nullable final Response.Listener<List<T>> listener) {
+		super.onSuccess(listener);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> onError(@Nullable final Response.ErrorListener listener) {
+		super.onError(listener);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> onCancel(@Nullable final CancelListener listener) {
+		super.onCancel(listener);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> multipart(@Nullable final MultipartBody body) {
+		super.multipart(body);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> cachePolicy(@Nullable final CachePolicy cachePolicy) {
+		super.cachePolicy(cachePolicy);
+		return this;
+	}
+
+	@NonNull
+	@Override
+	public CollectionRequestBuilder<T> cacheKey(@Nullable final CacheKeyStrategy cacheKeyStrategy) {
+		super.cacheKey(cacheKeyStrategy);
+		return this;
 	}
 
 	@SuppressWarnings("unchecked")
 	@NonNull
 	@Override
-	public <U> RequestBuilder<U, List<U>> get(@NonNull final Class<U> clazz) {
-		return (RequestBuilder<U, List<U>>) method(Request.Method.GET, clazz);
+	public <U> CollectionRequestBuilder<U> get(@NonNull final Class<U> clazz) {
+		return (CollectionRequestBuilder<U>) method(Request.Method.GET, clazz);
 	}
 
 	@NonNull
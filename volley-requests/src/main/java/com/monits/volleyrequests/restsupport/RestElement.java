@@ -44,6 +44,13 @@ public class RestElement<T> extends RestBase<T, T> implements UrlBuilder.Element
 		return type;
 	}
 
+	@NonNull
+	@Override
+	protected <U> RestElement<U> newInstance(@NonNull final String url, @NonNull final Gson gson,
+			@NonNull final Class<U> clazz) {
+		return new RestElement<>(url, gson, clazz);
+	}
+
 	@NonNull
 	@Override
 	protected Request<T> decorateRequest(@NonNull final Request<T> request) {
@@ -64,6 +71,18 @@ public class RestElement<T> extends RestBase<T, T> implements UrlBuilder.Element
 	@NonNull
 	@Override
 	public RestCollection<T> getList() {
-		return new RestCollection<>(url.substring(0, url.lastIndexOf('/')), gson, type);
+		return new RestCollection<>(getParentUrl(), gson, type);
+	}
+
+	@NonNull
+	@Override
+	protected String getCollectionUrl() {
+		final String collectionUrl = super.getCollectionUrl();
+		return collectionUrl == null ? getParentUrl() : collectionUrl;
+	}
+
+	@NonNull
+	private String getParentUrl() {
+		return url.substring(0, url.lastIndexOf('/'));
 	}
 }
@@ -25,9 +25,8 @@ import com.android.volley.Request;
 import com.android.volley.Request.Method;
 import com.android.volley.Response.ErrorListener;
 import com.android.volley.Response.Listener;
-import com.google.common.reflect.TypeParameter;
-import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
+import com.monits.volleyrequests.network.request.ContainerTypes;
 import com.monits.volleyrequests.network.request.GsonRequest;
 import com.monits.volleyrequests.network.request.ListenableRequest.CancelListener;
 
@@ -40,8 +39,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
  *
@@ -56,13 +55,9 @@ import java.util.regex.Pattern;
  */
 @Deprecated
 public class RestResource<T> {
-	private static final String PARAMETERS_REGEX = "/(:([^/]+))";
-	private static final String REMOVE_MULTIPLE_SLASH = "/{2,}";
-	private static final String REMOVE_FINAL_SLASH = "/$";
-	private static final Pattern PATTERN = Pattern.compile(PARAMETERS_REGEX);
-
 	protected final Gson gson;
 	private final String resource;
+	private final UrlTemplate template;
 	private final Class<T> clazz;
 	private final String hostAndPort;
 	private String elementsKey = "elements";
@@ -86,12 +81,11 @@ public class RestResource<T> {
 					@NonNull final Gson gson) throws MalformedURLException {
 		final URL url = new URL(resource);
 		this.resource = url.getFile();
+		this.template = new UrlTemplate(this.resource);
 		this.clazz = clazz;
 		this.hostAndPort = prepareHostURL(url);
 		this.gson = gson;
-		this.listTypeToken = new TypeToken<List<T>>() {
-		} .where(new TypeParameter<T>() {
-		}, TypeToken.of(clazz)).getType();
+		this.listTypeToken = ContainerTypes.listOf(clazz);
 	}
 
 	/**
@@ -141,9 +135,8 @@ public class RestResource<T> {
 						@Nullable final ErrorListener errListener,
 						@Nullable final CancelListener cancelListener,
 						@Nullable final T object) {
-		final String jsonBody  = object == null ? null : gson.toJson(object);
 		return new GsonRequest<>(method, url, this.gson,
-				type, listener, errListener, cancelListener, jsonBody);
+				type, listener, errListener, cancelListener, object);
 	}
 
 	/**
@@ -584,7 +577,8 @@ public class RestResource<T> {
 
 	/**
 	 * Replace the resource parameters in the url and if the queryParams is not
-	 * null and not empty, add the query string to the URL
+	 * null and not empty, add the query string to the URL, sorted by param name.
+	 * Both are percent-encoded.
 	 *
 	 * @param resourceParams
 	 *            A Map with the value of the parameters that must be replaced
@@ -601,15 +595,18 @@ public class RestResource<T> {
 						? Collections.<String, String>emptyMap() : resourceParams;
 		String url = replaceValuesInResource(map);
 		if (queryParams != null && !queryParams.isEmpty()) {
+			// Sorted, so the same params always yield the same url, and therefore the same cache entry
+			final Map<String, String> sortedParams = queryParams instanceof SortedMap
+					? queryParams : new TreeMap<>(queryParams);
 			final StringBuilder builder = new StringBuilder();
-			builder.append(url).append('?');
-			int elementsLeft = queryParams.size();
-			for (final Entry<String, String> entry : queryParams.entrySet()) {
-				builder.append(entry.getKey()).append('=')
-						.append(entry.getValue());
-				if (--elementsLeft > 0) {
-					builder.append('&');
-				}
+			builder.append(url);
+			char separator = '?';
+			for (final Entry<String, String> entry : sortedParams.entrySet()) {
+				builder.append(separator);
+				PercentEncoder.appendQueryComponent(builder, entry.getKey());
+				builder.append('=');
+				PercentEncoder.appendQueryComponent(builder, entry.getValue());
+				separator = '&';
 			}
 			url = builder.toString();
 		}
@@ -628,15 +625,7 @@ public class RestResource<T> {
 	 * @return The url
 	 */
 	private String replaceValuesInResource(@NonNull final Map<String, String> resourceParams) {
-		String url = resource;
-		final Matcher matcher = PATTERN.matcher(url);
-		while (matcher.find()) {
-			final String mapValue = resourceParams.get(matcher.group(2));
-			final String value = mapValue == null ? "" : mapValue;
-			url = url.replace(matcher.group(1), value);
-		}
-		url = url.replaceAll(REMOVE_MULTIPLE_SLASH, "/");
-		return url.replaceAll(REMOVE_FINAL_SLASH, "");
+		return template.expand(resourceParams);
 	}
 
 	/**
@@ -17,10 +17,11 @@ package com.monits.volleyrequests.restsupport;
 
 import android.support.annotation.NonNull;
 
-import java.util.List;
-
 /**
  * Defines a builder for url that manages REST concepts.
+ *
+ * Routes and ids must not be encoded, they are percent-encoded when appended to the url.
+ * Slashes are kept in routes, so a route may span several segments, but escaped in ids.
  */
 public interface UrlBuilder {
 	/**
@@ -62,7 +63,7 @@ public interface UrlBuilder {
 
 		@NonNull
 		@Override
-		<T> RequestBuilder<T, List<T>> get(@NonNull Class<T> clazz);
+		<T> CollectionRequestBuilder<T> get(@NonNull Class<T> clazz);
 	}
 
 	/**
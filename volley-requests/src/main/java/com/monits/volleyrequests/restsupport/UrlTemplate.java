@@ -0,0 +1,118 @@
+/*
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.restsupport;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A path template with named parameters, such as <code>/user/:userId/card/:cardId</code>.
+ *
+ * The template is split into literal segments and parameter names once, so expanding it
+ * is a single pass over them, with no regular expressions involved.
+ */
+/*package*/ final class UrlTemplate {
+	private static final int PARAM_LENGTH_GUESSTIMATE = 8;
+
+	private final String template;
+	private final String[] literals;
+	private final String[] names;
+
+	/**
+	 * Parses a template. Parameters are segments starting with a colon, their name
+	 * runs up to the next slash.
+	 *
+	 * @param template The template to be parsed.
+	 */
+	/*package*/ UrlTemplate(@NonNull final String template) {
+		this.template = template;
+
+		final List<String> literalList = new ArrayList<>();
+		final List<String> nameList = new ArrayList<>();
+		int literalStart = 0;
+		int idx = template.indexOf("/:");
+		while (idx != -1) {
+			final int nameStart = idx + 2;
+			int nameEnd = template.indexOf('/', nameStart);
+			if (nameEnd == -1) {
+				nameEnd = template.length();
+			}
+
+			// An empty name is not a parameter
+			if (nameEnd > nameStart) {
+				literalList.add(template.substring(literalStart, idx + 1));
+				nameList.add(template.substring(nameStart, nameEnd));
+				literalStart = nameEnd;
+			}
+
+			idx = template.indexOf("/:", Math.max(nameEnd, idx + 1));
+		}
+		literalList.add(template.substring(literalStart));
+
+		this.literals = literalList.toArray(new String[literalList.size()]);
+		this.names = nameList.toArray(new String[nameList.size()]);
+	}
+
+	/**
+	 * Expands the template. Values are percent-encoded, except for slashes.
+	 * Missing parameters are left empty, and the path is normalized
+	 * by collapsing consecutive slashes and removing the trailing one, so omitting trailing
+	 * parameters yields the parent resource.
+	 *
+	 * @param params The values of the parameters, keyed by name.
+	 * @return The expanded path.
+	 */
+	@NonNull
+	/*package*/ String expand(@NonNull final Map<String, String> params) {
+		final StringBuilder sb = new StringBuilder(template.length() + PARAM_LENGTH_GUESSTIMATE * names.length);
+		for (int i = 0; i < names.length; i++) {
+			appendNormalized(sb, literals[i]);
+
+			final String value = params.get(names[i]);
+			if (value != null) {
+				appendNormalized(sb, PercentEncoder.encodePath(value));
+			}
+		}
+		appendNormalized(sb, literals[names.length]);
+
+		final int last = sb.length() - 1;
+		if (last >= 0 && sb.charAt(last) == '/') {
+			sb.setLength(last);
+		}
+
+		return sb.toString();
+	}
+
+	private static void appendNormalized(@NonNull final StringBuilder sb, @NonNull final String s) {
+		final int length = s.length();
+		for (int i = 0; i < length; i++) {
+			final char c = s.charAt(i);
+			if (c != '/' || sb.length() == 0 || sb.charAt(sb.length() - 1) != '/') {
+				sb.append(c);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "UrlTemplate{ template='" + template + '\''
+			+ ", params=" + names.length
+			+ " }";
+	}
+}
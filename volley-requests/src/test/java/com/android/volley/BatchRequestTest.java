@@ -0,0 +1,258 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.volley;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.monits.volleyrequests.network.request.GsonRequest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD.TooManyStaticImports", "unchecked" })
+public class BatchRequestTest {
+	private static final String BATCH_URL = "http://www.google.com/batch";
+	private static final String URL = "http://www.google.com/items/1";
+	private static final String OTHER_URL = "http://www.google.com/items/2";
+	private static final String CHARSET = "UTF-8";
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyBatchIsRejected() {
+		new BatchRequest(BATCH_URL, Collections.<Request<?>>emptyList(), null);
+	}
+
+	@Test
+	public void testBatchIsNotCached() {
+		assertFalse(newBatch(newRequest(Request.Method.GET, URL, String.class, null, null)).shouldCache());
+	}
+
+	@Test
+	public void testBatchedRequestsAreNotFinishedOnQueue() throws UnsupportedEncodingException {
+		final RequestQueue queue = mock(RequestQueue.class);
+		when(queue.getCache()).thenReturn(mock(Cache.class));
+
+		final Request<String> get = newRequest(Request.Method.GET, URL, String.class, null, null);
+		final Request<String> other = newRequest(Request.Method.GET, OTHER_URL, String.class, null, null);
+		final BatchRequest batch = newBatch(get, other);
+		batch.setRequestQueue(queue);
+
+		deliver(batch, "[{\"status\": 200, \"body\": \"first\"}, {\"status\": 200, \"body\": \"second\"}]");
+		batch.deliverError(new VolleyError());
+
+		verify(queue, never()).finish(get);
+		verify(queue, never()).finish(other);
+	}
+
+	@Test
+	public void testBatchIsPosted() {
+		final BatchRequest batch = newBatch(newRequest(Request.Method.GET, URL, String.class, null, null));
+
+		assertEquals(Request.Method.POST, batch.getMethod());
+		assertEquals(BATCH_URL, batch.getUrl());
+		assertTrue(batch.getBodyContentType().startsWith("application/json"));
+	}
+
+	@Test
+	public void testBodyEncodesEveryRequest() throws AuthFailureError, UnsupportedEncodingException {
+		final GsonRequest<String> get = newRequest(Request.Method.GET, URL, String.class, null, null);
+		get.addHeader("Accept", "application/json");
+		final Request<String> put = new GsonRequest<>(Request.Method.PUT, OTHER_URL, new Gson(),
+				String.class, null, null, null, Collections.singletonMap("name", "value"));
+
+		final JsonArray body = new JsonParser().parse(
+				new String(newBatch(get, put).getBody(), CHARSET)).getAsJsonArray();
+		assertEquals(2, body.size());
+
+		final JsonObject first = body.get(0).getAsJsonObject();
+		assertEquals("GET", first.get("method").getAsString());
+		assertEquals(URL, first.get("url").getAsString());
+		assertEquals("application/json",
+				first.getAsJsonObject("headers").get("Accept").getAsString());
+		assertFalse(first.has("body"));
+
+		final JsonObject second = body.get(1).getAsJsonObject();
+		assertEquals("PUT", second.get("method").getAsString());
+		assertEquals(OTHER_URL, second.get("url").getAsString());
+		assertEquals("value", second.getAsJsonObject("body").get("name").getAsString());
+		assertTrue(second.getAsJsonObject("headers").has("Content-Type"));
+	}
+
+	@Test
+	public void testResponsesAreDemultiplexed() throws UnsupportedEncodingException {
+		final Response.Listener<String> stringListener = mock(Response.Listener.class);
+		final Response.Listener<Integer> intListener = mock(Response.Listener.class);
+		final BatchRequest batch = newBatch(
+				newRequest(Request.Method.GET, URL, String.class, stringListener, null),
+				newRequest(Request.Method.GET, OTHER_URL, Integer.class, intListener, null));
+
+		deliver(batch, "[{\"status\": 200, \"body\": \"first\"}, {\"status\": 200, \"body\": 2}]");
+
+		verify(stringListener).onResponse("first");
+		verify(intListener).onResponse(2);
+	}
+
+	@Test
+	public void testFailedResponsesAreDeliveredAsErrors() throws UnsupportedEncodingException {
+		final Response.Listener<String> listener = mock(Response.Listener.class);
+		final Response.ErrorListener notFoundListener = mock(Response.ErrorListener.class);
+		final Response.ErrorListener forbiddenListener = mock(Response.ErrorListener.class);
+		final BatchRequest batch = newBatch(
+				newRequest(Request.Method.GET, URL, String.class, listener, notFoundListener),
+				newRequest(Request.Method.GET, OTHER_URL, String.class, listener, forbiddenListener));
+
+		deliver(batch, "[{\"status\": 404}, {\"status\": 403, \"headers\": {\"X-Reason\": \"nope\"}}]");
+
+		verify(listener, never()).onResponse(any(String.class));
+		verify(notFoundListener).onErrorResponse(any(ServerError.class));
+
+		final ArgumentCaptor<VolleyError> captor = ArgumentCaptor.forClass(VolleyError.class);
+		verify(forbiddenListener).onErrorResponse(captor.capture());
+		assertTrue(captor.getValue() instanceof AuthFailureError);
+		assertEquals("nope", captor.getValue().networkResponse.headers.get("X-Reason"));
+	}
+
+	@Test
+	public void testMismatchedResponsesFailTheBatch() throws UnsupportedEncodingException {
+		final BatchRequest batch = newBatch(newRequest(Request.Method.GET, URL, String.class, null, null),
+				newRequest(Request.Method.GET, OTHER_URL, String.class, null, null));
+
+		final Response<List<Response<?>>> response = batch.parseNetworkResponse(
+				newResponse("[{\"status\": 200, \"body\": \"first\"}]"));
+
+		assertFalse(response.isSuccess());
+		assertTrue(response.error instanceof ParseError);
+	}
+
+	@Test
+	public void testMalformedResponsesFailTheBatch() throws UnsupportedEncodingException {
+		final BatchRequest batch = newBatch(newRequest(Request.Method.GET, URL, String.class, null, null));
+
+		assertFalse(batch.parseNetworkResponse(newResponse("{}")).isSuccess());
+		assertFalse(batch.parseNetworkResponse(newResponse("[{\"body\": 1}]")).isSuccess());
+	}
+
+	@Test
+	public void testBatchErrorsAreDeliveredToAll() {
+		final Response.ErrorListener first = mock(Response.ErrorListener.class);
+		final Response.ErrorListener second = mock(Response.ErrorListener.class);
+		final Response.ErrorListener batchListener = mock(Response.ErrorListener.class);
+		final BatchRequest batch = new BatchRequest(BATCH_URL, Arrays.asList(
+				newRequest(Request.Method.GET, URL, String.class, null, first),
+				newRequest(Request.Method.GET, OTHER_URL, String.class, null, second)), batchListener);
+		final VolleyError error = new VolleyError();
+
+		batch.deliverError(error);
+
+		verify(first).onErrorResponse(error);
+		verify(second).onErrorResponse(error);
+		verify(batchListener).onErrorResponse(error);
+	}
+
+	@Test
+	public void testCanceledRequestsAreSkipped() throws UnsupportedEncodingException {
+		final Response.Listener<String> canceledListener = mock(Response.Listener.class);
+		final Response.Listener<String> listener = mock(Response.Listener.class);
+		final Request<String> canceled = newRequest(Request.Method.GET, URL, String.class,
+				canceledListener, null);
+		final BatchRequest batch = newBatch(canceled,
+				newRequest(Request.Method.GET, OTHER_URL, String.class, listener, null));
+
+		canceled.cancel();
+		assertFalse(batch.isCanceled());
+		deliver(batch, "[{\"status\": 200, \"body\": \"first\"}, {\"status\": 200, \"body\": \"second\"}]");
+
+		verify(canceledListener, never()).onResponse(any(String.class));
+		verify(listener).onResponse("second");
+	}
+
+	@Test
+	public void testBatchIsCanceledWithAllItsRequests() {
+		final Request<String> first = newRequest(Request.Method.GET, URL, String.class, null, null);
+		final Request<String> second = newRequest(Request.Method.GET, OTHER_URL, String.class, null, null);
+		final BatchRequest batch = newBatch(first, second);
+
+		first.cancel();
+		second.cancel();
+		assertTrue(batch.isCanceled());
+
+		final BatchRequest other = newBatch(newRequest(Request.Method.GET, URL, String.class, null, null));
+		other.cancel();
+		assertTrue(other.getRequests().get(0).isCanceled());
+	}
+
+	@Test
+	public void testCacheableResponsesAreStored() throws UnsupportedEncodingException {
+		final Cache cache = mock(Cache.class);
+		final RequestQueue queue = mock(RequestQueue.class);
+		when(queue.getCache()).thenReturn(cache);
+
+		final Request<String> get = newRequest(Request.Method.GET, URL, String.class, null, null);
+		final Request<String> post = newRequest(Request.Method.POST, OTHER_URL, String.class, null, null);
+		final BatchRequest batch = newBatch(get, post);
+		batch.setRequestQueue(queue);
+
+		final Response<List<Response<?>>> response = batch.parseNetworkResponse(newResponse("["
+				+ "{\"status\": 200, \"headers\": {\"Cache-Control\": \"max-age=60\"}, \"body\": \"first\"},"
+				+ "{\"status\": 201, \"headers\": {\"Cache-Control\": \"max-age=60\"}, \"body\": \"second\"}]"));
+
+		assertTrue(response.isSuccess());
+		verify(cache).put(eq(get.getCacheKey()), any(Cache.Entry.class));
+		verify(cache, never()).put(eq(post.getCacheKey()), any(Cache.Entry.class));
+	}
+
+	private static void deliver(final BatchRequest batch, final String json) throws UnsupportedEncodingException {
+		final Response<List<Response<?>>> response = batch.parseNetworkResponse(newResponse(json));
+		if (!response.isSuccess()) {
+			fail("Batch could not be parsed " + response.error);
+		}
+
+		batch.deliverResponse(response.result);
+	}
+
+	private static NetworkResponse newResponse(final String json) throws UnsupportedEncodingException {
+		return new NetworkResponse(json.getBytes(CHARSET));
+	}
+
+	private static BatchRequest newBatch(final Request<?>... requests) {
+		return new BatchRequest(BATCH_URL, Arrays.asList(requests), null);
+	}
+
+	private static <T> GsonRequest<T> newRequest(final int method, final String url, final Class<T> clazz,
+			final Response.Listener<T> listener, final Response.ErrorListener errorListener) {
+		return new GsonRequest<>(method, url, new Gson(), clazz, listener, errorListener, null, (Object) null);
+	}
+}
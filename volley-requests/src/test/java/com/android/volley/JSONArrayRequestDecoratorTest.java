@@ -17,6 +17,10 @@ package com.android.volley;
 
 import android.support.annotation.NonNull;
 
+import com.google.common.reflect.TypeToken;
+import com.google.gson.Gson;
+import com.monits.volleyrequests.network.request.GsonRequest;
+
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -26,11 +30,14 @@ import org.mockito.ArgumentCaptor;
 import org.robolectric.RobolectricTestRunner;
 
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.mockito.Mockito.verify;
 
@@ -114,6 +121,56 @@ public class JSONArrayRequestDecoratorTest
 		}
 	}
 
+	@Test
+	public void testParseNetworkResponseWithJsonReaderParser() throws UnsupportedEncodingException {
+		final Map<String, String> headers = new HashMap<>();
+		headers.put(CONTENT_TYPE, "application/javascript; charset=" + CHARSET);
+
+		final NetworkResponse response = new NetworkResponse(
+				"{\"meta\": {\"elements\": 2}, \"elements\": [0, 1, -1], \"total\": 3}".getBytes(CHARSET),
+				headers);
+		final Response<List<Integer>> parsedResponse = newGsonRequestDecorator()
+				.parseNetworkResponse(response);
+
+		assertTrue("The request has failed", parsedResponse.isSuccess());
+		assertEquals("Failed to parse jsonArray response", Arrays.asList(0, 1, -1), parsedResponse.result);
+	}
+
+	@Test
+	public void testParseNetworkResponseWithJsonReaderParserAndMissingKey()
+			throws UnsupportedEncodingException {
+		final Map<String, String> headers = new HashMap<>();
+		headers.put(CONTENT_TYPE, "application/javascript; charset=" + CHARSET);
+
+		final NetworkResponse response = new NetworkResponse("{\"other\": [0, 1]}".getBytes(CHARSET),
+				headers);
+		final Response<List<Integer>> parsedResponse = newGsonRequestDecorator()
+				.parseNetworkResponse(response);
+
+		assertFalse("The request has not failed", parsedResponse.isSuccess());
+	}
+
+	@Test
+	public void testParseNetworkResponseWithJsonReaderParserAndBadJson()
+			throws UnsupportedEncodingException {
+		final Map<String, String> headers = new HashMap<>();
+		headers.put(CONTENT_TYPE, "application/javascript; charset=" + CHARSET);
+
+		final NetworkResponse response = new NetworkResponse("[0, 1]".getBytes(CHARSET), headers);
+		final Response<List<Integer>> parsedResponse = newGsonRequestDecorator()
+				.parseNetworkResponse(response);
+
+		assertFalse("The request has not failed", parsedResponse.isSuccess());
+	}
+
+	@NonNull
+	private JSONArrayRequestDecorator<List<Integer>> newGsonRequestDecorator() {
+		final GsonRequest<List<Integer>> gsonRequest = new GsonRequest<>(Request.Method.GET,
+				"http://www.google.com/", new Gson(), new TypeToken<List<Integer>>() { }.getType(),
+				null, null, null, (Object) null);
+		return new JSONArrayRequestDecorator<>(gsonRequest, ELEMENTS_KEY);
+	}
+
 	@Test
 	public void testGetElementsKey() {
 		assertEquals(ELEMENTS_KEY, decorator.getElementsKey());
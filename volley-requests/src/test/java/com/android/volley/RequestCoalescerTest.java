@@ -0,0 +1,208 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.volley;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD.TooManyStaticImports", "unchecked" })
+public class RequestCoalescerTest {
+	private static final String URL = "http://www.google.com/";
+	private static final String OTHER_URL = "http://www.google.com/other";
+	private static final Object RESPONSE = new Object();
+
+	private RequestQueue queue;
+	private RequestCoalescer coalescer;
+
+	@Before
+	public void setUp() {
+		queue = mock(RequestQueue.class);
+		coalescer = new RequestCoalescer(queue);
+	}
+
+	@Test
+	public void testIdenticalRequestsAreCoalesced() throws AuthFailureError {
+		final Request<Object> first = newRequest(Request.Method.GET, URL);
+		final Request<Object> second = newRequest(Request.Method.GET, URL);
+
+		coalescer.add(first);
+		coalescer.add(second);
+
+		final Request<Object> sent = captureSent();
+		sent.deliverResponse(RESPONSE);
+
+		verify(first).deliverResponse(RESPONSE);
+		verify(second).deliverResponse(RESPONSE);
+		verify(first).markDelivered();
+		verify(second).markDelivered();
+	}
+
+	@Test
+	public void testAttachedRequestsAreFinished() throws AuthFailureError {
+		final CountingDecorator first = new CountingDecorator(newRequest(Request.Method.GET, URL));
+		final CountingDecorator second = new CountingDecorator(newRequest(Request.Method.GET, URL));
+
+		coalescer.add(first);
+		coalescer.add(second);
+
+		final Request<Object> sent = captureSent();
+		sent.deliverResponse(RESPONSE);
+		sent.finish("done");
+
+		assertEquals(1, first.finished);
+		assertEquals(1, second.finished);
+	}
+
+	@Test
+	public void testErrorsAreDeliveredToAll() throws AuthFailureError {
+		final Request<Object> first = newRequest(Request.Method.GET, URL);
+		final Request<Object> second = newRequest(Request.Method.GET, URL);
+		final VolleyError error = new VolleyError();
+
+		coalescer.add(first);
+		coalescer.add(second);
+		captureSent().deliverError(error);
+
+		verify(first).deliverError(error);
+		verify(second).deliverError(error);
+	}
+
+	@Test
+	public void testDifferentUrlsAreNotCoalesced() throws AuthFailureError {
+		coalescer.add(newRequest(Request.Method.GET, URL));
+		coalescer.add(newRequest(Request.Method.GET, OTHER_URL));
+
+		verify(queue, times(2)).add(any(Request.class));
+	}
+
+	@Test
+	public void testDifferentHeadersAreNotCoalesced() throws AuthFailureError {
+		final Request<Object> other = newRequest(Request.Method.GET, URL);
+		when(other.getHeaders()).thenReturn(Collections.singletonMap("Accept", "text/plain"));
+
+		coalescer.add(newRequest(Request.Method.GET, URL));
+		coalescer.add(other);
+
+		verify(queue, times(2)).add(any(Request.class));
+	}
+
+	@Test
+	public void testUnsafeMethodsAreNotCoalesced() throws AuthFailureError {
+		final Request<Object> first = newRequest(Request.Method.POST, URL);
+		final Request<Object> second = newRequest(Request.Method.POST, URL);
+
+		coalescer.add(first);
+		coalescer.add(second);
+
+		verify(queue).add(first);
+		verify(queue).add(second);
+	}
+
+	@Test
+	public void testCanceledRequestsAreSkipped() throws AuthFailureError {
+		final Request<Object> first = newRequest(Request.Method.GET, URL);
+		final Request<Object> second = newRequest(Request.Method.GET, URL);
+
+		coalescer.add(first);
+		coalescer.add(second);
+		when(first.isCanceled()).thenReturn(true);
+
+		final Request<Object> sent = captureSent();
+		assertFalse("Request canceled while others still wait for it", sent.isCanceled());
+
+		sent.deliverResponse(RESPONSE);
+
+		verify(first, never()).deliverResponse(RESPONSE);
+		verify(second).deliverResponse(RESPONSE);
+	}
+
+	@Test
+	public void testAllCanceledCancelsRequest() throws AuthFailureError {
+		final Request<Object> first = newRequest(Request.Method.GET, URL);
+		final Request<Object> second = newRequest(Request.Method.GET, URL);
+
+		coalescer.add(first);
+		coalescer.add(second);
+		when(first.isCanceled()).thenReturn(true);
+		when(second.isCanceled()).thenReturn(true);
+
+		assertTrue(captureSent().isCanceled());
+	}
+
+	@Test
+	public void testFinishedRequestsAreNotReused() throws AuthFailureError {
+		coalescer.add(newRequest(Request.Method.GET, URL));
+		captureSent().finish("done");
+
+		coalescer.add(newRequest(Request.Method.GET, URL));
+
+		verify(queue, times(2)).add(any(Request.class));
+	}
+
+	@Test
+	public void testDeliveredRequestsAreNotReused() throws AuthFailureError {
+		final Request<Object> late = newRequest(Request.Method.GET, URL);
+
+		coalescer.add(newRequest(Request.Method.GET, URL));
+		captureSent().deliverResponse(RESPONSE);
+		coalescer.add(late);
+
+		verify(queue, times(2)).add(any(Request.class));
+	}
+
+	private Request<Object> captureSent() {
+		final ArgumentCaptor<Request> captor = ArgumentCaptor.forClass(Request.class);
+		verify(queue).add(captor.capture());
+		return captor.getValue();
+	}
+
+	private static Request<Object> newRequest(final int method, final String url) throws AuthFailureError {
+		final Request<Object> request = mock(Request.class);
+		when(request.getMethod()).thenReturn(method);
+		when(request.getUrl()).thenReturn(url);
+		when(request.getHeaders()).thenReturn(Collections.<String, String>emptyMap());
+		return request;
+	}
+
+	private static class CountingDecorator extends RequestDecorator<Object> {
+		private int finished;
+
+		/*package*/ CountingDecorator(final Request<Object> request) {
+			super(request);
+		}
+
+		@Override
+		protected void onFinish() {
+			finished++;
+		}
+	}
+}
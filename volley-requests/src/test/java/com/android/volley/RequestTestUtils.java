@@ -0,0 +1,39 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.volley;
+
+/**
+ * Gives tests outside of this package access to the protected methods Volley calls on requests.
+ */
+public final class RequestTestUtils {
+
+	private RequestTestUtils() {
+		throw new AssertionError("Can't instantiate this class");
+	}
+
+	public static <T> Response<T> parseNetworkResponse(final Request<T> request,
+			final NetworkResponse response) {
+		return request.parseNetworkResponse(response);
+	}
+
+	public static <T> void deliverResponse(final Request<T> request, final T response) {
+		request.deliverResponse(response);
+	}
+
+	public static void finish(final Request<?> request) {
+		request.finish("done");
+	}
+}
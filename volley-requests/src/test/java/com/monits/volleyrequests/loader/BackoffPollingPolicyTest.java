@@ -0,0 +1,84 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.loader;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BackoffPollingPolicyTest {
+	private static final long BASE_DELAY = 1000L;
+	private static final long MAX_DELAY = 5000L;
+
+	@Test
+	public void testUnchangedBacksOffUpToMax() {
+		final PollingPolicy policy = new BackoffPollingPolicy(BASE_DELAY, MAX_DELAY, 2f, 0f);
+
+		assertEquals(2000L, policy.nextDelay(PollingPolicy.Outcome.UNCHANGED));
+		assertEquals(4000L, policy.nextDelay(PollingPolicy.Outcome.UNCHANGED));
+		assertEquals(MAX_DELAY, policy.nextDelay(PollingPolicy.Outcome.UNCHANGED));
+		assertEquals(MAX_DELAY, policy.nextDelay(PollingPolicy.Outcome.UNCHANGED));
+	}
+
+	@Test
+	public void testErrorBacksOff() {
+		final PollingPolicy policy = new BackoffPollingPolicy(BASE_DELAY, MAX_DELAY, 2f, 0f);
+
+		assertEquals(2000L, policy.nextDelay(PollingPolicy.Outcome.ERROR));
+		assertEquals(4000L, policy.nextDelay(PollingPolicy.Outcome.ERROR));
+	}
+
+	@Test
+	public void testChangedResetsDelay() {
+		final PollingPolicy policy = new BackoffPollingPolicy(BASE_DELAY, MAX_DELAY, 2f, 0f);
+
+		policy.nextDelay(PollingPolicy.Outcome.UNCHANGED);
+		policy.nextDelay(PollingPolicy.Outcome.UNCHANGED);
+
+		assertEquals(BASE_DELAY, policy.nextDelay(PollingPolicy.Outcome.CHANGED));
+	}
+
+	@Test
+	public void testResetGoesBackToBaseDelay() {
+		final PollingPolicy policy = new BackoffPollingPolicy(BASE_DELAY, MAX_DELAY, 2f, 0f);
+
+		policy.nextDelay(PollingPolicy.Outcome.ERROR);
+		policy.reset();
+
+		assertEquals(2000L, policy.nextDelay(PollingPolicy.Outcome.ERROR));
+	}
+
+	@Test
+	public void testJitterSpreadsDelay() {
+		final PollingPolicy policy = new BackoffPollingPolicy(BASE_DELAY, MAX_DELAY, 2f, 0.5f);
+
+		for (int i = 0; i < 100; i++) {
+			final long delay = policy.nextDelay(PollingPolicy.Outcome.CHANGED);
+			assertTrue("Delay out of bounds: " + delay, delay >= 500L && delay <= 1500L);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMaxDelayLessThanBase() {
+		new BackoffPollingPolicy(BASE_DELAY, BASE_DELAY - 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidJitter() {
+		new BackoffPollingPolicy(BASE_DELAY, MAX_DELAY, 2f, 1.5f);
+	}
+}
@@ -16,9 +16,16 @@
 package com.monits.volleyrequests.loader;
 
 import android.content.Context;
+import android.support.v4.content.Loader;
 
+import com.android.volley.Cache;
+import com.android.volley.NetworkResponse;
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
+import com.android.volley.RequestTestUtils;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.google.gson.Gson;
 import com.monits.volleyrequests.network.request.GsonRequest;
 
 import org.junit.Before;
@@ -27,8 +34,13 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.robolectric.RobolectricTestRunner;
 
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
@@ -38,12 +50,18 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Robolectric.runUiThreadTasks;
 import static org.robolectric.Robolectric.runUiThreadTasksIncludingDelayedTasks;
 
 
 @RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD.TooManyStaticImports", "unchecked" })
 public class RequestLoaderTest {
+	private static final String URL = "http://www.google.com/";
+
 	private Request<String> request;
 	private RequestQueue requestQueue;
 	private RequestLoader<String> loader;
@@ -61,10 +79,43 @@ public class RequestLoaderTest {
 		final int nRepeat = 2;
 		loader.setUpdateThrottle(5L);
 		loader.onForceLoad();
+		RequestTestUtils.finish(captureDispatched());
 		runUiThreadTasksIncludingDelayedTasks();
 		verify(requestQueue, atLeast(nRepeat)).add(any(Request.class));
 	}
 
+	@Test
+	public void testUpdateThrottleReusesRequestInFlight() {
+		loader.setUpdateThrottle(5L);
+		loader.onForceLoad();
+		runUiThreadTasksIncludingDelayedTasks();
+
+		verify(requestQueue, times(1)).add(any(Request.class));
+		assertEquals(1, loader.getDispatchCount());
+		assertTrue(loader.getSuppressedDispatchCount() > 0);
+	}
+
+	@Test
+	public void testForceLoadSupersedesRequestInFlight() {
+		loader.onForceLoad();
+		final Request<String> first = captureDispatched();
+		loader.onForceLoad();
+
+		assertTrue(first.isCanceled());
+		verify(requestQueue, times(2)).add(any(Request.class));
+		assertEquals(2, loader.getDispatchCount());
+		assertEquals(0, loader.getSuppressedDispatchCount());
+	}
+
+	@Test
+	public void testStartLoadingReusesRequestInFlight() {
+		loader.startLoading();
+		loader.startLoading();
+
+		verify(requestQueue, times(1)).add(any(Request.class));
+		assertEquals(1, loader.getSuppressedDispatchCount());
+	}
+
 	@Test
 	public void testSuperCancelNeverCall() {
 		final ArgumentCaptor<Request> captor = ArgumentCaptor.forClass(Request.class);
@@ -135,4 +186,215 @@ public class RequestLoaderTest {
 		assertNotNull(loader.toString());
 	}
 
+	@Test
+	public void testStaleWhileRevalidateDiscardsUnchangedResponses() throws UnsupportedEncodingException {
+		final Loader.OnLoadCompleteListener<String> listener = mock(Loader.OnLoadCompleteListener.class);
+		final RequestLoader<String> swrLoader = newStaleWhileRevalidateLoader(listener);
+		final Request<String> dispatched = captureDispatched();
+
+		deliver(dispatched, newResponse("value", "\"a\""));
+		deliver(dispatched, newResponse("value", "\"a\""));
+
+		verify(listener, times(1)).onLoadComplete(swrLoader, "value");
+	}
+
+	@Test
+	public void testStaleWhileRevalidateDeliversChangedResponses() throws UnsupportedEncodingException {
+		final Loader.OnLoadCompleteListener<String> listener = mock(Loader.OnLoadCompleteListener.class);
+		final RequestLoader<String> swrLoader = newStaleWhileRevalidateLoader(listener);
+		final Request<String> dispatched = captureDispatched();
+
+		deliver(dispatched, newResponse("value", null));
+		deliver(dispatched, newResponse("other", null));
+
+		verify(listener).onLoadComplete(swrLoader, "value");
+		verify(listener).onLoadComplete(swrLoader, "other");
+	}
+
+	@Test
+	public void testStaleWhileRevalidateIgnoresCanceledResponses() throws UnsupportedEncodingException {
+		final Loader.OnLoadCompleteListener<String> listener = mock(Loader.OnLoadCompleteListener.class);
+		final RequestLoader<String> swrLoader = newStaleWhileRevalidateLoader(listener);
+		final Request<String> first = captureDispatched();
+
+		// Parsed, but superseded by a reload before being delivered
+		RequestTestUtils.parseNetworkResponse(first, newResponse("value", "\"a\""));
+		swrLoader.onForceLoad();
+		assertTrue(first.isCanceled());
+
+		deliver(captureDispatched(2), newResponse("value", "\"a\""));
+
+		verify(listener).onLoadComplete(swrLoader, "value");
+	}
+
+	@Test
+	public void testStaleWhileRevalidateDiscardsNotModified() throws UnsupportedEncodingException {
+		final Loader.OnLoadCompleteListener<String> listener = mock(Loader.OnLoadCompleteListener.class);
+		final RequestLoader<String> swrLoader = newStaleWhileRevalidateLoader(listener);
+		final Request<String> dispatched = captureDispatched();
+		final NetworkResponse response = newResponse("value", null);
+
+		deliver(dispatched, response);
+		deliver(dispatched, new NetworkResponse(304, response.data, new HashMap<String, String>(), true));
+
+		verify(listener, times(1)).onLoadComplete(swrLoader, "value");
+	}
+
+	@Test
+	public void testStaleWhileRevalidateDeliversExpiredEntry() throws UnsupportedEncodingException {
+		final Loader.OnLoadCompleteListener<String> listener = mock(Loader.OnLoadCompleteListener.class);
+		final RequestLoader<String> swrLoader = newStaleWhileRevalidateLoader(listener);
+		final Request<String> dispatched = captureDispatched();
+
+		final NetworkResponse response = newResponse("value", null);
+		final Cache.Entry entry = new Cache.Entry();
+		entry.data = response.data;
+		entry.responseHeaders = response.headers;
+
+		// Volley sets expired entries right before sending the request to the network
+		dispatched.setCacheEntry(entry);
+		runUiThreadTasksIncludingDelayedTasks();
+
+		verify(listener).onLoadComplete(swrLoader, "value");
+	}
+
+	@Test
+	public void testPollingPolicySchedulesAfterError() {
+		final PollingPolicy policy = mock(PollingPolicy.class);
+		when(policy.nextDelay(any(PollingPolicy.Outcome.class))).thenReturn(5L);
+		loader.setPollingPolicy(policy);
+		loader.onForceLoad();
+
+		final Request<String> dispatched = captureDispatched();
+		dispatched.deliverError(new VolleyError());
+		RequestTestUtils.finish(dispatched);
+		runUiThreadTasksIncludingDelayedTasks();
+
+		verify(policy).reset();
+		verify(policy).nextDelay(PollingPolicy.Outcome.ERROR);
+		verify(requestQueue, times(2)).add(any(Request.class));
+	}
+
+	@Test
+	public void testPollingPolicyGetsUnchangedResponses() throws UnsupportedEncodingException {
+		final PollingPolicy policy = mock(PollingPolicy.class);
+		when(policy.nextDelay(any(PollingPolicy.Outcome.class))).thenReturn(5L);
+		final RequestLoader<String> pollingLoader = newPollingLoader(policy);
+
+		final Request<String> first = captureDispatched();
+		deliver(first, newResponse("value", null));
+		RequestTestUtils.finish(first);
+		runUiThreadTasksIncludingDelayedTasks();
+
+		final Request<String> second = captureDispatched(2);
+		deliver(second, newResponse("value", null));
+		RequestTestUtils.finish(second);
+		runUiThreadTasks();
+
+		verify(policy).nextDelay(PollingPolicy.Outcome.CHANGED);
+		verify(policy).nextDelay(PollingPolicy.Outcome.UNCHANGED);
+		assertEquals(2, pollingLoader.getDispatchCount());
+	}
+
+	@Test
+	public void testPollingPolicyCountsOnlyLatestDeliveryPerRequest() throws UnsupportedEncodingException {
+		final PollingPolicy policy = mock(PollingPolicy.class);
+		when(policy.nextDelay(any(PollingPolicy.Outcome.class))).thenReturn(5L);
+		newPollingLoader(policy);
+		final Request<String> dispatched = captureDispatched();
+
+		// A soft-expired cache hit, followed by its refresh
+		deliver(dispatched, newResponse("value", null));
+		deliver(dispatched, newResponse("value", null));
+		runUiThreadTasks();
+		verify(policy, never()).nextDelay(any(PollingPolicy.Outcome.class));
+
+		RequestTestUtils.finish(dispatched);
+		runUiThreadTasks();
+
+		verify(policy, times(1)).nextDelay(any(PollingPolicy.Outcome.class));
+		verify(policy).nextDelay(PollingPolicy.Outcome.UNCHANGED);
+	}
+
+	@Test
+	public void testPollingPolicyIgnoresCanceledRequests() throws UnsupportedEncodingException {
+		final PollingPolicy policy = mock(PollingPolicy.class);
+		newPollingLoader(policy);
+		final Request<String> dispatched = captureDispatched();
+
+		deliver(dispatched, newResponse("value", null));
+		dispatched.cancel();
+		RequestTestUtils.finish(dispatched);
+		runUiThreadTasks();
+
+		verify(policy, never()).nextDelay(any(PollingPolicy.Outcome.class));
+	}
+
+	@Test
+	public void testPollingPolicyStopsPolling() {
+		final PollingPolicy policy = mock(PollingPolicy.class);
+		when(policy.nextDelay(any(PollingPolicy.Outcome.class))).thenReturn(0L);
+		loader.setPollingPolicy(policy);
+		loader.setUpdateThrottle(5L);
+		loader.onForceLoad();
+
+		final Request<String> dispatched = captureDispatched();
+		dispatched.deliverError(new VolleyError());
+		RequestTestUtils.finish(dispatched);
+		runUiThreadTasksIncludingDelayedTasks();
+
+		verify(policy).nextDelay(PollingPolicy.Outcome.ERROR);
+
+		verify(requestQueue, times(1)).add(any(Request.class));
+	}
+
+	private RequestLoader<String> newStaleWhileRevalidateLoader(
+			final Loader.OnLoadCompleteListener<String> listener) {
+		final Request<String> stringRequest = new GsonRequest<>(Request.Method.GET, URL, new Gson(),
+				String.class, null, null, null, (Object) null);
+		final RequestLoader<String> swrLoader = new RequestLoader<>(mock(Context.class), stringRequest,
+				requestQueue);
+		swrLoader.setStaleWhileRevalidate(true);
+		swrLoader.registerListener(0, listener);
+		swrLoader.onForceLoad();
+
+		return swrLoader;
+	}
+
+	private RequestLoader<String> newPollingLoader(final PollingPolicy policy) {
+		final Request<String> stringRequest = new GsonRequest<>(Request.Method.GET, URL, new Gson(),
+				String.class, null, null, null, (Object) null);
+		final RequestLoader<String> pollingLoader = new RequestLoader<>(mock(Context.class), stringRequest,
+				requestQueue);
+		pollingLoader.setPollingPolicy(policy);
+		pollingLoader.onForceLoad();
+
+		return pollingLoader;
+	}
+
+	private Request<String> captureDispatched() {
+		return captureDispatched(1);
+	}
+
+	private Request<String> captureDispatched(final int times) {
+		final ArgumentCaptor<Request> captor = ArgumentCaptor.forClass(Request.class);
+		verify(requestQueue, times(times)).add(captor.capture());
+		return captor.getValue();
+	}
+
+	private static void deliver(final Request<String> request, final NetworkResponse networkResponse) {
+		final Response<String> response = RequestTestUtils.parseNetworkResponse(request, networkResponse);
+		RequestTestUtils.deliverResponse(request, response.result);
+	}
+
+	private static NetworkResponse newResponse(final String value, final String etag)
+			throws UnsupportedEncodingException {
+		final Map<String, String> headers = new HashMap<>();
+		headers.put("Content-Type", "application/json; charset=utf-8");
+		if (etag != null) {
+			headers.put("ETag", etag);
+		}
+
+		return new NetworkResponse(new Gson().toJson(value).getBytes("utf-8"), headers);
+	}
 }
@@ -53,7 +53,8 @@ public abstract class AbstractJsonRfcCompliantListenableRequestTest<S, T extends
 
 	@Test
 	public void testBodyContentType() {
-		assertEquals("Failed setting the content type", "application/json", request.getBodyContentType());
+		assertEquals("Failed setting the content type", "application/json; charset=utf-8",
+				request.getBodyContentType());
 	}
 
 	@Test
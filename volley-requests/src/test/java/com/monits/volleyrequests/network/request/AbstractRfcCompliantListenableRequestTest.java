@@ -15,19 +15,32 @@
  */
 package com.monits.volleyrequests.network.request;
 
+import com.android.volley.AuthFailureError;
 import com.android.volley.Cache;
+import com.android.volley.NetworkResponse;
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.HttpHeaderParser;
 
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -89,4 +102,242 @@ public abstract class AbstractRfcCompliantListenableRequestTest<S, T extends Rfc
 
 		verify(cache, never()).put(anyString(), any(Cache.Entry.class));
 	}
+
+	@Test
+	public void testUnsafeResponseInvalidatesCache() {
+		final RequestQueue queue = mock(RequestQueue.class);
+		final Cache cache = mock(Cache.class);
+		when(queue.getCache()).thenReturn(cache);
+
+		final Map<String, String> headers = new HashMap<>();
+		headers.put("location", "/items/2");
+		headers.put("Content-Location", "http://www.google.com/items/3");
+
+		final T r = newRequest(Request.Method.PUT);
+		r.addInvalidatedUrl("http://www.google.com/items");
+		r.setRequestQueue(queue);
+		r.parseNetworkResponse(new NetworkResponse(new byte[0], headers));
+
+		verify(cache).remove(r.getCacheKey());
+		verify(cache).remove("http://www.google.com/items");
+		verify(cache).remove("http://www.google.com/items/2");
+		verify(cache).remove("http://www.google.com/items/3");
+	}
+
+	@Test
+	public void testLocationOnOtherHostIsNotInvalidated() {
+		final RequestQueue queue = mock(RequestQueue.class);
+		final Cache cache = mock(Cache.class);
+		when(queue.getCache()).thenReturn(cache);
+
+		final Map<String, String> headers = new HashMap<>();
+		headers.put("Location", "http://www.example.com/items/2");
+
+		final T r = newRequest(Request.Method.POST);
+		r.setRequestQueue(queue);
+		r.parseNetworkResponse(new NetworkResponse(new byte[0], headers));
+
+		verify(cache).remove(r.getCacheKey());
+		verify(cache, never()).remove("http://www.example.com/items/2");
+	}
+
+	@Test
+	public void testSafeResponseDoesNotInvalidateCache() {
+		final RequestQueue queue = mock(RequestQueue.class);
+		final Cache cache = mock(Cache.class);
+		when(queue.getCache()).thenReturn(cache);
+
+		final Map<String, String> headers = new HashMap<>();
+		headers.put("Location", "/items/2");
+
+		final T r = newRequest(Request.Method.GET);
+		r.addInvalidatedUrl("http://www.google.com/items");
+		r.setRequestQueue(queue);
+		r.parseNetworkResponse(new NetworkResponse(new byte[0], headers));
+
+		verify(cache, never()).remove(anyString());
+	}
+
+	@Test
+	public void testNetworkOnlySkipsVolleyCache() {
+		final T r = newRequest(Request.Method.GET);
+		r.setCachePolicy(CachePolicy.NETWORK_ONLY);
+
+		assertFalse(r.shouldCache());
+		assertSame(CachePolicy.NETWORK_ONLY, r.getCachePolicy());
+	}
+
+	@Test
+	public void testNetworkOnlyRevalidatesCachedEntry() {
+		final RequestQueue queue = mock(RequestQueue.class);
+		final Cache cache = mock(Cache.class);
+		when(queue.getCache()).thenReturn(cache);
+
+		final T r = newRequest(Request.Method.GET);
+		final Cache.Entry entry = new Cache.Entry();
+		when(cache.get(r.getCacheKey())).thenReturn(entry);
+		r.setCachePolicy(CachePolicy.NETWORK_ONLY);
+		r.setRequestQueue(queue);
+
+		assertSame(entry, r.getCacheEntry());
+		assertSame(entry, r.getCacheEntry());
+		verify(cache, times(1)).get(r.getCacheKey());
+	}
+
+	@Test
+	public void testNetworkOnlyStoresResponse() {
+		final RequestQueue queue = mock(RequestQueue.class);
+		final Cache cache = mock(Cache.class);
+		when(queue.getCache()).thenReturn(cache);
+
+		final T r = newRequest(Request.Method.GET);
+		r.setCachePolicy(CachePolicy.NETWORK_ONLY);
+		r.setRequestQueue(queue);
+		final Cache.Entry entry = r.parseCacheHeaders(new NetworkResponse(new byte[0], newCacheHeaders()));
+
+		verify(cache).put(r.getCacheKey(), entry);
+	}
+
+	@Test
+	public void testCachePolicyIsIgnoredForPost() {
+		final RequestQueue queue = mock(RequestQueue.class);
+		final Cache cache = mock(Cache.class);
+		when(queue.getCache()).thenReturn(cache);
+
+		final T r = newRequest(Request.Method.POST);
+		r.setCachePolicy(CachePolicy.CACHE_ONLY);
+		r.setRequestQueue(queue);
+
+		assertFalse(r.shouldCache());
+		assertNull(r.getCacheEntry());
+		verify(cache, never()).get(anyString());
+	}
+
+	@Test
+	public void testCacheOnlyNeverHitsNetwork() throws AuthFailureError {
+		final T r = newRequest(Request.Method.GET);
+		r.setCachePolicy(CachePolicy.CACHE_ONLY);
+
+		assertTrue(r.shouldCache());
+		assertNull(r.getCacheEntry());
+		try {
+			r.getHeaders();
+			fail("The network stack should not get the headers of a CACHE_ONLY request");
+		} catch (final AuthFailureError e) {
+			assertTrue(r.parseNetworkError(e) instanceof CacheMissError);
+		}
+
+		// Only the network stack is stopped, anyone else still gets the headers
+		assertNotNull(r.getHeaders());
+	}
+
+	@Test
+	public void testOtherErrorsAreNotReplaced() {
+		final T r = newRequest(Request.Method.GET);
+		final VolleyError error = new VolleyError();
+
+		assertSame(error, r.parseNetworkError(error));
+	}
+
+	@Test
+	public void testStaleWhileRevalidateStoresServerTtl() {
+		final T r = newRequest(Request.Method.GET);
+		r.setCachePolicy(CachePolicy.STALE_WHILE_REVALIDATE);
+		final Cache.Entry entry = r.parseCacheHeaders(new NetworkResponse(new byte[0], newCacheHeaders()));
+
+		assertFalse(entry.isExpired());
+		assertTrue(entry.ttl < Long.MAX_VALUE);
+		assertEquals(entry.softTtl, entry.ttl);
+	}
+
+	@Test
+	public void testLastModifiedIsUsedForRevalidation() {
+		final Map<String, String> headers = newCacheHeaders();
+		headers.put("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT");
+		headers.put("Date", "Thu, 22 Oct 2015 07:28:00 GMT");
+
+		final T r = newRequest(Request.Method.GET);
+		final Cache.Entry entry = r.parseCacheHeaders(new NetworkResponse(new byte[0], headers));
+		r.setCacheEntry(entry);
+
+		// The validator is sent, but the cached entry keeps its server date
+		assertEquals(HttpHeaderParser.parseDateAsEpoch("Wed, 21 Oct 2015 07:28:00 GMT"),
+				r.getCacheEntry().serverDate);
+		assertEquals(HttpHeaderParser.parseDateAsEpoch("Thu, 22 Oct 2015 07:28:00 GMT"), entry.serverDate);
+		assertSame(entry.data, r.getCacheEntry().data);
+	}
+
+	@Test
+	public void testNotModifiedIsMergedWithRevalidatedEntry() {
+		final Cache.Entry revalidated = new Cache.Entry();
+		revalidated.data = new byte[] { 1, 2, 3 };
+		revalidated.responseHeaders = newCacheHeaders();
+		revalidated.responseHeaders.put("ETag", "\"a\"");
+
+		final Map<String, String> headers = new HashMap<>();
+		headers.put("Date", "Thu, 22 Oct 2015 07:28:00 GMT");
+
+		final T r = newRequest(Request.Method.GET);
+		r.setCacheEntry(revalidated);
+		final NetworkResponse merged = r.mergeNotModified(new NetworkResponse(304, null, headers, true));
+
+		assertSame(revalidated.data, merged.data);
+		assertEquals("\"a\"", merged.headers.get("ETag"));
+		assertEquals("Thu, 22 Oct 2015 07:28:00 GMT", merged.headers.get("Date"));
+	}
+
+	@Test
+	public void testRevalidatedEntryIsNotStoredAgain() {
+		final RequestQueue queue = mock(RequestQueue.class);
+		final Cache cache = mock(Cache.class);
+		when(queue.getCache()).thenReturn(cache);
+
+		final T r = newRequest(Request.Method.GET);
+		r.setCacheEntry(new Cache.Entry());
+		r.setRequestQueue(queue);
+		r.parseCacheHeaders(new NetworkResponse(new byte[0], newCacheHeaders()));
+		r.deliverResponse(newValidResponse());
+
+		verify(cache, never()).put(anyString(), any(Cache.Entry.class));
+	}
+
+	@Test
+	public void testCacheKeyStrategyIsUsed() {
+		final T r = newRequest(Request.Method.GET);
+		final String url = r.getUrl();
+		r.setCacheKeyStrategy(new SuffixCacheKeyStrategy());
+
+		assertEquals(url + SuffixCacheKeyStrategy.SUFFIX, r.getCacheKey());
+	}
+
+	@Test
+	public void testInvalidatedUrlsUseCacheKeyStrategy() {
+		final RequestQueue queue = mock(RequestQueue.class);
+		final Cache cache = mock(Cache.class);
+		when(queue.getCache()).thenReturn(cache);
+
+		final T r = newRequest(Request.Method.PUT);
+		r.setCacheKeyStrategy(new SuffixCacheKeyStrategy());
+		r.addInvalidatedUrl("http://www.google.com/items");
+		r.setRequestQueue(queue);
+		r.invalidateCache(new NetworkResponse(new byte[0], new HashMap<String, String>()));
+
+		verify(cache).remove(r.getCacheKey());
+		verify(cache).remove("http://www.google.com/items" + SuffixCacheKeyStrategy.SUFFIX);
+	}
+
+	private static Map<String, String> newCacheHeaders() {
+		final Map<String, String> headers = new HashMap<>();
+		headers.put("Cache-Control", "max-age=60");
+		return headers;
+	}
+
+	private static class SuffixCacheKeyStrategy implements CacheKeyStrategy {
+		private static final String SUFFIX = "#variant";
+
+		@Override
+		public String getCacheKey(final String url, final Map<String, String> headers) {
+			return url + SUFFIX;
+		}
+	}
 }
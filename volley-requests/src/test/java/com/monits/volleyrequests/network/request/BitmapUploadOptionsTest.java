@@ -0,0 +1,70 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.CompressFormat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class BitmapUploadOptionsTest {
+
+	@Test
+	public void testMimeType() {
+		assertEquals("image/jpeg", new BitmapUploadOptions(CompressFormat.JPEG, 80, 0).getMimeType());
+		assertEquals("image/png", new BitmapUploadOptions(CompressFormat.PNG, 80, 0).getMimeType());
+		assertEquals("image/webp", new BitmapUploadOptions(CompressFormat.WEBP, 80, 0).getMimeType());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testQualityOutOfRange() {
+		new BitmapUploadOptions(CompressFormat.JPEG, 101, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeMaxDimension() {
+		new BitmapUploadOptions(CompressFormat.JPEG, 80, -1);
+	}
+
+	@Test
+	public void testScaleKeepsAspectRatio() {
+		final Bitmap bitmap = Bitmap.createBitmap(400, 200, Bitmap.Config.ARGB_8888);
+		final Bitmap scaled = new BitmapUploadOptions(CompressFormat.JPEG, 80, 100).scale(bitmap);
+
+		assertEquals(100, scaled.getWidth());
+		assertEquals(50, scaled.getHeight());
+	}
+
+	@Test
+	public void testScaleSmallerBitmapIsNoOp() {
+		final Bitmap bitmap = Bitmap.createBitmap(40, 20, Bitmap.Config.ARGB_8888);
+
+		assertSame(bitmap, new BitmapUploadOptions(CompressFormat.JPEG, 80, 100).scale(bitmap));
+	}
+
+	@Test
+	public void testScaleWithoutMaxDimensionIsNoOp() {
+		final Bitmap bitmap = Bitmap.createBitmap(400, 200, Bitmap.Config.ARGB_8888);
+
+		assertSame(bitmap, BitmapUploadOptions.DEFAULT.scale(bitmap));
+	}
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Robolectric.runUiThreadTasksIncludingDelayedTasks;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD.TooManyStaticImports", "unchecked" })
+public class ChunkedGsonListRequestTest
+		extends AbstractJsonRfcCompliantListenableRequestTest<List<SampleData>,
+			ChunkedGsonListRequest<SampleData>> {
+	private static final String CONTENT_TYPE = "Content-Type";
+	private static final String CHARSET = "UTF-8";
+	private static final int CHUNK_SIZE = 2;
+
+	private ChunkedGsonListRequest.ChunkListener<SampleData> chunkListener;
+
+	@Override
+	protected ChunkedGsonListRequest<SampleData> newRequest(final int method,
+				final Response.Listener<List<SampleData>> listener) {
+		return newRequest(method, listener, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected ChunkedGsonListRequest<SampleData> newRequest(final int method,
+				final Response.Listener<List<SampleData>> listener,
+				final ListenableRequest.CancelListener cancelListener) {
+		chunkListener = mock(ChunkedGsonListRequest.ChunkListener.class);
+		return new ChunkedGsonListRequest<>(method, "http://www.google.com/", new Gson(), SampleData.class,
+				CHUNK_SIZE, chunkListener, listener, null, cancelListener, null);
+	}
+
+	@Override
+	protected List<SampleData> newValidResponse() {
+		return Collections.singletonList(new SampleData("my string data"));
+	}
+
+	@Test
+	public void testDeliverResponseDeliversChunks() throws UnsupportedEncodingException {
+		final Response.Listener<List<SampleData>> listener = mock(Response.Listener.class);
+		request = newRequest(Request.Method.GET, listener);
+		final Response<List<SampleData>> response = request.parseNetworkResponse(
+				newNetworkResponse("[{\"data\": \"a\"}, {\"data\": \"b\"}, {\"data\": \"c\"}]"));
+
+		assertTrue(response.isSuccess());
+		assertEquals(Arrays.asList(new SampleData("a"), new SampleData("b"), new SampleData("c")),
+				response.result);
+		verify(chunkListener, never()).onChunk(anyListOf(SampleData.class));
+
+		request.deliverResponse(response.result);
+
+		final InOrder inOrder = inOrder(chunkListener, listener);
+		inOrder.verify(chunkListener).onChunk(Arrays.asList(new SampleData("a"), new SampleData("b")));
+		inOrder.verify(chunkListener).onChunk(Collections.singletonList(new SampleData("c")));
+		inOrder.verify(listener).onResponse(response.result);
+	}
+
+	@Test
+	public void testRefreshedResponseDoesNotRepeatChunks() throws UnsupportedEncodingException {
+		final Response<List<SampleData>> response = request.parseNetworkResponse(
+				newNetworkResponse("[{\"data\": \"a\"}]"));
+
+		request.deliverResponse(response.result);
+		request.deliverResponse(response.result);
+
+		verify(chunkListener).onChunk(Collections.singletonList(new SampleData("a")));
+	}
+
+	@Test
+	public void testParseNetworkResponseWithEmptyArray() throws UnsupportedEncodingException {
+		final Response<List<SampleData>> response = request.parseNetworkResponse(newNetworkResponse("[]"));
+
+		assertTrue(response.isSuccess());
+		assertTrue(response.result.isEmpty());
+
+		request.deliverResponse(response.result);
+		verify(chunkListener, never()).onChunk(anyListOf(SampleData.class));
+	}
+
+	@Test
+	public void testParseNetworkResponseWithBadJson() throws UnsupportedEncodingException {
+		final Response<List<SampleData>> response = request.parseNetworkResponse(
+				newNetworkResponse("[{\"data\": \"a\"}, {\"data\": \"b\"}, {\"data\": "));
+
+		assertFalse(response.isSuccess());
+		runUiThreadTasksIncludingDelayedTasks();
+		verify(chunkListener, never()).onChunk(anyListOf(SampleData.class));
+	}
+
+	@Test
+	public void testParseNetworkResponseWithTrailingData() throws UnsupportedEncodingException {
+		final Response<List<SampleData>> response = request.parseNetworkResponse(
+				newNetworkResponse("[{\"data\": \"a\"}] []"));
+
+		assertFalse(response.isSuccess());
+		runUiThreadTasksIncludingDelayedTasks();
+		verify(chunkListener, never()).onChunk(anyListOf(SampleData.class));
+	}
+
+	@Test
+	public void testParseNetworkResponseWithNonArray() throws UnsupportedEncodingException {
+		final Response<List<SampleData>> response = request.parseNetworkResponse(
+				newNetworkResponse("{\"data\": \"a\"}"));
+
+		assertFalse(response.isSuccess());
+	}
+
+	@Test
+	public void testChunksAreNotDeliveredWhenCanceled() throws UnsupportedEncodingException {
+		final Response<List<SampleData>> response = request.parseNetworkResponse(
+				newNetworkResponse("[{\"data\": \"a\"}]"));
+		request.cancel();
+		request.deliverResponse(response.result);
+
+		verify(chunkListener, never()).onChunk(anyListOf(SampleData.class));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNonPositiveChunkSize() {
+		new ChunkedGsonListRequest<>(0, "http://www.google.com/", new Gson(), SampleData.class,
+				0, chunkListener, null, null, null, null);
+	}
+
+	private NetworkResponse newNetworkResponse(final String json) throws UnsupportedEncodingException {
+		final Map<String, String> headers = new HashMap<>();
+		headers.put(CONTENT_TYPE, "application/javascript; charset=" + CHARSET);
+		return new NetworkResponse(json.getBytes(CHARSET), headers);
+	}
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ContainerTypesTest {
+
+	@Test
+	public void testListOf() {
+		assertEquals(new TypeToken<List<String>>() { }.getType(), ContainerTypes.listOf(String.class));
+	}
+
+	@Test
+	public void testListOfParameterizedType() {
+		final Type listOfStrings = new TypeToken<List<String>>() { }.getType();
+
+		assertEquals(new TypeToken<List<List<String>>>() { }.getType(), ContainerTypes.listOf(listOfStrings));
+	}
+
+	@Test
+	public void testListTypesAreShared() {
+		assertSame(ContainerTypes.listOf(Integer.class), ContainerTypes.listOf(Integer.class));
+	}
+}
@@ -18,6 +18,7 @@ package com.monits.volleyrequests.network.request;
 import com.android.volley.NetworkResponse;
 import com.android.volley.Response;
 import com.android.volley.AuthFailureError;
+import com.google.gson.Gson;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -25,6 +26,9 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
 
+import java.io.UnsupportedEncodingException;
+
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNull;
 
 @RunWith(RobolectricTestRunner.class)
@@ -55,6 +59,15 @@ public class EmptyResponseRequestTest
 		assertNull(body);
 	}
 
+	@Test
+	public void testGetBodyFromObject() throws AuthFailureError, UnsupportedEncodingException {
+		final SampleData data = new SampleData("my string data");
+		final EmptyResponseRequest objectRequest = new EmptyResponseRequest(0, "http://www.google.com/",
+				null, null, null, new Gson(), data);
+
+		assertEquals(new Gson().toJson(data), new String(objectRequest.getBody(), "UTF-8"));
+	}
+
 	@Test
 	public void testParseNetworkResponse() {
 		final NetworkResponse networkResponse = new NetworkResponse(null);
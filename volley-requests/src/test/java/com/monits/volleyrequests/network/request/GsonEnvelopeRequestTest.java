@@ -0,0 +1,139 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Response;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("PMD.TooManyStaticImports")
+public class GsonEnvelopeRequestTest
+		extends AbstractJsonRfcCompliantListenableRequestTest<List<SampleData>,
+			GsonEnvelopeRequest<SampleData>> {
+	private static final String CONTENT_TYPE = "Content-Type";
+	private static final String CHARSET = "UTF-8";
+	private static final String ELEMENTS_KEY = "elements";
+	private static final Type LIST_TYPE = new TypeToken<List<SampleData>>() { }.getType();
+
+	@Override
+	protected GsonEnvelopeRequest<SampleData> newRequest(final int method,
+				final Response.Listener<List<SampleData>> listener) {
+		return newRequest(method, listener, null);
+	}
+
+	@Override
+	protected GsonEnvelopeRequest<SampleData> newRequest(final int method,
+				final Response.Listener<List<SampleData>> listener,
+				final ListenableRequest.CancelListener cancelListener) {
+		return new GsonEnvelopeRequest<>(method, "http://www.google.com/", new Gson(), LIST_TYPE,
+				ELEMENTS_KEY, listener, null, cancelListener, null);
+	}
+
+	@Override
+	protected List<SampleData> newValidResponse() {
+		return Collections.singletonList(new SampleData("my string data"));
+	}
+
+	@Test
+	public void testParseNetworkResponse() throws UnsupportedEncodingException {
+		final Response<List<SampleData>> response = request.parseNetworkResponse(
+				newNetworkResponse("{\"total\": 1, \"elements\": [{\"data\": \"my string data\"}]}"));
+
+		assertTrue(response.isSuccess());
+		assertEquals(newValidResponse(), response.result);
+	}
+
+	@Test
+	public void testParseNetworkResponseWithMissingKey() throws UnsupportedEncodingException {
+		final Response<List<SampleData>> response = request.parseNetworkResponse(
+				newNetworkResponse("{\"total\": 1, \"others\": []}"));
+
+		assertFalse(response.isSuccess());
+	}
+
+	@Test
+	public void testParseNetworkResponseWithBadJson() throws UnsupportedEncodingException {
+		final Response<List<SampleData>> response = request.parseNetworkResponse(
+				newNetworkResponse("{\"elements\": [{\"data\": null}"));
+
+		assertFalse(response.isSuccess());
+	}
+
+	@Test
+	public void testParseNetworkResponseWithNonArrayElements() throws UnsupportedEncodingException {
+		final Response<List<SampleData>> response = request.parseNetworkResponse(
+				newNetworkResponse("{\"elements\": {\"data\": null}}"));
+
+		assertFalse(response.isSuccess());
+	}
+
+	@Test
+	public void testMetadataIsDelivered() throws UnsupportedEncodingException {
+		final GsonEnvelopeRequest.MetadataListener metadataListener =
+				mock(GsonEnvelopeRequest.MetadataListener.class);
+		request.setMetadataListener(metadataListener);
+
+		final Response<List<SampleData>> response = request.parseNetworkResponse(newNetworkResponse(
+				"{\"total\": 1, \"elements\": [{\"data\": \"my string data\"}], \"next\": \"abc\"}"));
+		request.deliverResponse(response.result);
+
+		final ArgumentCaptor<JsonObject> captor = ArgumentCaptor.forClass(JsonObject.class);
+		verify(metadataListener).onMetadata(captor.capture());
+		assertEquals(1, captor.getValue().get("total").getAsInt());
+		assertEquals("abc", captor.getValue().get("next").getAsString());
+		assertFalse(captor.getValue().has(ELEMENTS_KEY));
+	}
+
+	@Test
+	public void testMetadataIsNotDeliveredOnFailure() throws UnsupportedEncodingException {
+		final GsonEnvelopeRequest.MetadataListener metadataListener =
+				mock(GsonEnvelopeRequest.MetadataListener.class);
+		request.setMetadataListener(metadataListener);
+
+		request.parseNetworkResponse(newNetworkResponse("{\"total\": 1}"));
+		request.deliverResponse(newValidResponse());
+
+		verify(metadataListener, never()).onMetadata(org.mockito.Matchers.any(JsonObject.class));
+	}
+
+	private NetworkResponse newNetworkResponse(final String json) throws UnsupportedEncodingException {
+		final Map<String, String> headers = new HashMap<>();
+		headers.put(CONTENT_TYPE, "application/javascript; charset=" + CHARSET);
+		return new NetworkResponse(json.getBytes(CHARSET), headers);
+	}
+}
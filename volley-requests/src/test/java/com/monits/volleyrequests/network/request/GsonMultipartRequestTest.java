@@ -0,0 +1,93 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Request;
+import com.google.gson.Gson;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class GsonMultipartRequestTest {
+	private MultipartBody body;
+	private GsonMultipartRequest<SampleData> request;
+
+	@Before
+	public void setUp() {
+		body = new MultipartBody()
+			.addPart("metadata", "{}", "application/json")
+			.addPart("stream", "stream.bin", new ByteArrayInputStream(new byte[] { 1, 2, 3 }), 3, null);
+		request = new GsonMultipartRequest<>(Request.Method.POST, "http://www.google.com/", new Gson(),
+				SampleData.class, null, null, null, body);
+	}
+
+	@Test
+	public void testContentTypeIsMultipart() {
+		assertEquals(body.getContentType(), request.getBodyContentType());
+	}
+
+	@Test
+	public void testGetBodyIsWrittenOnce() throws AuthFailureError {
+		// Stream parts can only be read once, a second write would fail
+		final byte[] bytes = request.getBody();
+
+		assertNotNull(bytes);
+		assertEquals(body.getContentLength(), bytes.length);
+		assertSame(bytes, request.getBody());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUnreadablePartFails() throws AuthFailureError {
+		request = new GsonMultipartRequest<>(Request.Method.POST, "http://www.google.com/", new Gson(),
+				SampleData.class, null, null, null, new MultipartBody()
+					.addPart("stream", "stream.bin", new ByteArrayInputStream(new byte[0]), 3, null));
+
+		request.getBody();
+	}
+
+	@Test
+	public void testGetBodyMatchesMultipartBody() throws AuthFailureError, IOException {
+		final MultipartBody textBody = new MultipartBody().addPart("text", "value");
+		request = new GsonMultipartRequest<>(Request.Method.POST, "http://www.google.com/", new Gson(),
+				SampleData.class, null, null, null, textBody);
+
+		assertArrayEquals(textBody.toByteArray(), request.getBody());
+	}
+
+	@Test
+	public void testToString() {
+		final String defaultToString = request.getClass().getName()
+				+ '@' + Integer.toHexString(request.hashCode());
+
+		assertThat(request.toString(), not(equalTo(defaultToString)));
+		assertNotNull(request.toString());
+	}
+}
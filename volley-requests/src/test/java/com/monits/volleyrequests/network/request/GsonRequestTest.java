@@ -15,11 +15,17 @@
  */
 package com.monits.volleyrequests.network.request;
 
+import com.android.volley.Cache;
 import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
 import com.android.volley.Response;
 import com.android.volley.AuthFailureError;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
 
 import org.junit.Test;
 
@@ -27,15 +33,26 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Robolectric.runUiThreadTasks;
 
 @RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD.TooManyStaticImports", "unchecked" })
 public class GsonRequestTest
 		extends AbstractJsonRfcCompliantListenableRequestTest<SampleData, GsonRequest<SampleData>> {
 	private static final String CONTENT_TYPE = "Content-Type";
@@ -45,14 +62,14 @@ public class GsonRequestTest
 	@Override
 	protected GsonRequest<SampleData> newRequest(final int method, final Response.Listener<SampleData> listener) {
 		return new GsonRequest<>(method, "http://www.google.com/", new Gson(), SampleData.class,
-				listener, null, null);
+				listener, null, null, (Object) null);
 	}
 
 	@Override
 	protected GsonRequest<SampleData> newRequest(final int method,
 				final Response.Listener<SampleData> listener,
 				final ListenableRequest.CancelListener cancelListener) {
-		return new GsonRequest<>(method, "http://www.google.com/", new Gson(), SampleData.class,
+		return GsonRequest.withJsonBody(method, "http://www.google.com/", new Gson(), SampleData.class,
 				listener, null, cancelListener, "{}");
 	}
 
@@ -79,6 +96,25 @@ public class GsonRequestTest
 		}
 	}
 
+	@Test
+	public void testParseNetworkResponseWithNonDefaultCharset() {
+		final String charset = "ISO-8859-1";
+		final SampleData data = new SampleData("ñandú");
+		final String json = new Gson().toJson(data);
+		final Map<String, String> headers = new HashMap<>();
+		headers.put(CONTENT_TYPE, "application/javascript; charset=" + charset);
+
+		try {
+			final NetworkResponse networkResponse = new NetworkResponse(
+					json.getBytes(charset), headers);
+			final Response<SampleData> response = request.parseNetworkResponse(networkResponse);
+
+			assertEquals(data, response.result);
+		} catch (final UnsupportedEncodingException e) {
+			fail(e.getMessage());
+		}
+	}
+
 	@Test
 	public void testParseNetworkResponseWithBadEncoding() {
 		// This method is not delegated, but overridden by the decorator
@@ -98,12 +134,212 @@ public class GsonRequestTest
 		}
 	}
 
+	@Test
+	public void testParsedResponseCacheIsUsedForSameEntry() throws UnsupportedEncodingException {
+		final GsonRequest<SampleData> cachedRequest = newCachedRequest(Request.Method.GET);
+
+		final Response<SampleData> first = cachedRequest.parseNetworkResponse(newEtagResponse("\"a\""));
+		final Response<SampleData> second = cachedRequest.parseNetworkResponse(newEtagResponse("\"a\""));
+		final Response<SampleData> changed = cachedRequest.parseNetworkResponse(newEtagResponse("\"b\""));
+
+		assertSame(first.result, second.result);
+		assertNotSame(first.result, changed.result);
+		assertEquals(first.result, changed.result);
+	}
+
+	@Test
+	public void testParsedResponseCacheIsNotUsedForUnsafeMethods() throws UnsupportedEncodingException {
+		final GsonRequest<SampleData> cachedRequest = newCachedRequest(Request.Method.POST);
+
+		final Response<SampleData> first = cachedRequest.parseNetworkResponse(newEtagResponse("\"a\""));
+		final Response<SampleData> second = cachedRequest.parseNetworkResponse(newEtagResponse("\"a\""));
+
+		assertNotSame(first.result, second.result);
+	}
+
+	@Test
+	public void testUnsafeResponseInvalidatesParsedResponseCache() throws UnsupportedEncodingException {
+		final ParsedResponseCache parsedResponseCache = new ParsedResponseCache(10);
+		final GsonRequest<SampleData> getRequest = newCachedRequest(Request.Method.GET);
+		getRequest.setParsedResponseCache(parsedResponseCache);
+		final GsonRequest<SampleData> putRequest = newCachedRequest(Request.Method.PUT);
+		putRequest.setParsedResponseCache(parsedResponseCache);
+
+		final Response<SampleData> first = getRequest.parseNetworkResponse(newEtagResponse("\"a\""));
+		putRequest.parseNetworkResponse(newEtagResponse("\"b\""));
+		final Response<SampleData> second = getRequest.parseNetworkResponse(newEtagResponse("\"a\""));
+
+		assertNotSame(first.result, second.result);
+	}
+
+	@Test
+	public void testNotModifiedReusesParsedResponse() throws UnsupportedEncodingException {
+		final GsonRequest<SampleData> cachedRequest = newCachedRequest(Request.Method.GET);
+		final Response<SampleData> first = cachedRequest.parseNetworkResponse(newEtagResponse("\"a\""));
+
+		// A 304 may carry just the headers that changed
+		final Map<String, String> headers = new HashMap<>();
+		headers.put("Date", "Thu, 22 Oct 2015 07:28:00 GMT");
+		cachedRequest.setCacheEntry(first.cacheEntry);
+		final Response<SampleData> second = cachedRequest.parseNetworkResponse(
+				new NetworkResponse(304, first.cacheEntry.data, headers, true));
+
+		assertSame(first.result, second.result);
+		assertEquals("\"a\"", second.cacheEntry.etag);
+	}
+
+	@Test
+	public void testStaleWhileRevalidateDeliversExpiredEntry() throws UnsupportedEncodingException {
+		final Response.Listener<SampleData> listener = mock(Response.Listener.class);
+		final GsonRequest<SampleData> r = newRequest(Request.Method.GET, listener);
+		r.setCachePolicy(CachePolicy.STALE_WHILE_REVALIDATE);
+
+		// Volley sets expired entries right before sending the request to the network
+		r.setCacheEntry(newExpiredEntry());
+		runUiThreadTasks();
+
+		verify(listener).onResponse(newValidResponse());
+		assertTrue(r.hasHadResponseDelivered());
+	}
+
+	@Test
+	public void testCacheFirstDoesNotDeliverExpiredEntry() throws UnsupportedEncodingException {
+		final Response.Listener<SampleData> listener = mock(Response.Listener.class);
+		final GsonRequest<SampleData> r = newRequest(Request.Method.GET, listener);
+
+		r.setCacheEntry(newExpiredEntry());
+		runUiThreadTasks();
+
+		verify(listener, never()).onResponse(any(SampleData.class));
+	}
+
+	@Test
+	public void testCacheOnlyServesExpiredEntry() throws UnsupportedEncodingException {
+		final Response.Listener<SampleData> listener = mock(Response.Listener.class);
+		final GsonRequest<SampleData> r = newRequest(Request.Method.GET, listener);
+		r.setCachePolicy(CachePolicy.CACHE_ONLY);
+		r.setCacheEntry(newExpiredEntry());
+
+		// What Volley does once the network stack fails
+		r.getCacheEntry();
+		try {
+			r.getHeaders();
+			fail("The network stack should not get the headers of a CACHE_ONLY request");
+		} catch (final AuthFailureError e) {
+			r.deliverError(r.parseNetworkError(e));
+		}
+
+		verify(listener).onResponse(newValidResponse());
+	}
+
+	private Cache.Entry newExpiredEntry() throws UnsupportedEncodingException {
+		final NetworkResponse response = newEtagResponse("\"a\"");
+		final Cache.Entry entry = new Cache.Entry();
+		entry.data = response.data;
+		entry.responseHeaders = response.headers;
+		return entry;
+	}
+
+	private GsonRequest<SampleData> newCachedRequest(final int method) {
+		final GsonRequest<SampleData> cachedRequest = new GsonRequest<>(method, "http://www.google.com/",
+				new Gson(), SampleData.class, null, null, null, (Object) null);
+		cachedRequest.setParsedResponseCache(new ParsedResponseCache(10));
+		return cachedRequest;
+	}
+
+	private NetworkResponse newEtagResponse(final String etag) throws UnsupportedEncodingException {
+		final Map<String, String> headers = new HashMap<>();
+		headers.put(CONTENT_TYPE, "application/json; charset=" + CHARSET);
+		headers.put("ETag", etag);
+		return new NetworkResponse(new Gson().toJson(newValidResponse()).getBytes(CHARSET), headers);
+	}
+
 	@Test
 	public void testGetNotNullBody() throws AuthFailureError {
 		final byte[] body = request.getBody();
 		assertNotNull(body);
 	}
 
+	@Test
+	public void testGetBodyIsMemoized() throws AuthFailureError {
+		final GsonRequest<SampleData> objectRequest = new GsonRequest<>(0, "http://www.google.com/",
+				new Gson(), SampleData.class, null, null, null, newValidResponse());
+		final byte[] body = objectRequest.getBody();
+
+		assertNotNull(body);
+		assertSame(body, objectRequest.getBody());
+	}
+
+	@Test
+	public void testGetBodyFromObject() throws AuthFailureError, UnsupportedEncodingException {
+		final SampleData data = new SampleData("ñandú");
+		final GsonRequest<SampleData> objectRequest = new GsonRequest<>(0, "http://www.google.com/",
+				new Gson(), SampleData.class, null, null, null, data);
+
+		assertEquals(new Gson().toJson(data), new String(objectRequest.getBody(), CHARSET));
+	}
+
+	@Test
+	public void testGetBodyFromObjectIsSerializedLazilyAndOnce() throws AuthFailureError {
+		final int[] serializations = new int[1];
+		final Gson gson = new GsonBuilder()
+			.registerTypeAdapter(SampleData.class, new JsonSerializer<SampleData>() {
+				@Override
+				public JsonElement serialize(final SampleData src, final Type typeOfSrc,
+						final JsonSerializationContext context) {
+					serializations[0]++;
+					return new Gson().toJsonTree(src);
+				}
+			}).create();
+		final GsonRequest<SampleData> objectRequest = new GsonRequest<>(0, "http://www.google.com/",
+				gson, SampleData.class, null, null, null, newValidResponse());
+
+		assertEquals("Body serialized before it was requested", 0, serializations[0]);
+
+		objectRequest.getBody();
+		objectRequest.getBody();
+
+		assertEquals("Body not serialized exactly once", 1, serializations[0]);
+	}
+
+	@Test
+	public void testGetBodyFailsRequestWhenSerializationFails() {
+		final IllegalStateException failure = new IllegalStateException("Can't serialize");
+		final Gson gson = new GsonBuilder()
+			.registerTypeAdapter(SampleData.class, new JsonSerializer<SampleData>() {
+				@Override
+				public JsonElement serialize(final SampleData src, final Type typeOfSrc,
+						final JsonSerializationContext context) {
+					throw failure;
+				}
+			}).create();
+		final GsonRequest<SampleData> objectRequest = new GsonRequest<>(0, "http://www.google.com/",
+				gson, SampleData.class, null, null, null, newValidResponse());
+
+		try {
+			objectRequest.getBody();
+			fail("Request sent without its body");
+		} catch (final AuthFailureError e) {
+			assertSame(failure, objectRequest.parseNetworkError(e).getCause());
+		}
+	}
+
+	@Test
+	public void testGetBodyFromRawJson() throws AuthFailureError, UnsupportedEncodingException {
+		final GsonRequest<SampleData> jsonRequest = GsonRequest.withJsonBody(0, "http://www.google.com/",
+				new Gson(), SampleData.class, null, null, null, "{\"data\":\"ñandú\"}");
+
+		assertEquals("{\"data\":\"ñandú\"}", new String(jsonRequest.getBody(), CHARSET));
+	}
+
+	@Test
+	public void testGetBodyFromNullObject() throws AuthFailureError {
+		final GsonRequest<SampleData> objectRequest = new GsonRequest<>(0, "http://www.google.com/",
+				new Gson(), SampleData.class, null, null, null, (Object) null);
+
+		assertNull(objectRequest.getBody());
+	}
+
 	@Test
 	public void testParseNetworkResponseWithBadJson() {
 		// This method is not delegated, but overridden by the decorator
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class HeaderCacheKeyStrategyTest {
+	private static final String URL = "http://www.google.com/items";
+
+	@Test
+	public void testWithoutHeadersKeyIsUrl() {
+		final CacheKeyStrategy strategy = new HeaderCacheKeyStrategy("Accept-Language");
+
+		assertEquals(URL, strategy.getCacheKey(URL, Collections.<String, String>emptyMap()));
+	}
+
+	@Test
+	public void testSelectedHeadersAreIncluded() {
+		final Map<String, String> headers = new HashMap<>();
+		headers.put("accept-language", "es");
+		headers.put("Accept", "application/json");
+		headers.put("Authorization", "Bearer token");
+		headers.put("X-Request-Id", "1234");
+
+		final CacheKeyStrategy strategy = new HeaderCacheKeyStrategy("Accept-Language", "Accept");
+
+		assertEquals(URL + "#accept=application/json&accept-language=es", strategy.getCacheKey(URL, headers));
+	}
+
+	@Test
+	public void testVolatileHeadersDontChangeKey() {
+		final CacheKeyStrategy strategy = new HeaderCacheKeyStrategy("Accept-Language");
+
+		final Map<String, String> headers = new HashMap<>();
+		headers.put("Accept-Language", "es");
+		headers.put("Authorization", "Bearer token");
+		final String key = strategy.getCacheKey(URL, headers);
+
+		headers.put("Authorization", "Bearer other");
+		assertEquals(key, strategy.getCacheKey(URL, headers));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoHeaders() {
+		new HeaderCacheKeyStrategy();
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class MultipartBodyTest {
+	private static final String CHARSET = "UTF-8";
+
+	private MultipartBody body;
+
+	@Before
+	public void setUp() {
+		body = new MultipartBody();
+	}
+
+	@Test
+	public void testContentTypeIsMultipart() {
+		assertThat(body.getContentType(), startsWith("multipart/form-data; boundary="));
+	}
+
+	@Test
+	public void testBoundaryIsRandom() {
+		assertThat(body.getContentType(), not(new MultipartBody().getContentType()));
+	}
+
+	@Test
+	public void testEmptyBody() throws IOException {
+		final String boundary = boundaryOf(body);
+
+		assertEquals("--" + boundary + "--\r\n", new String(body.toByteArray(), CHARSET));
+	}
+
+	@Test
+	public void testParts() throws IOException {
+		final File file = File.createTempFile("multipart", ".txt");
+		file.deleteOnExit();
+		final OutputStream fos = new FileOutputStream(file);
+		fos.write("file contents".getBytes(CHARSET));
+		fos.close();
+
+		body.addPart("text", "ñandú")
+			.addPart("metadata", "{\"a\":1}", "application/json")
+			.addPart("bytes", "bytes.bin", new byte[] { 1, 2, 3 }, null)
+			.addPart("file", file, "text/plain")
+			.addPart("stream", "stream.txt", new ByteArrayInputStream("stream contents".getBytes(CHARSET)),
+					15, "text/plain");
+
+		final byte[] bytes = body.toByteArray();
+		final String str = new String(bytes, CHARSET);
+
+		assertEquals(body.getContentLength(), bytes.length);
+		assertThat(str, containsString("name=\"text\"\r\nContent-Type: text/plain; charset=utf-8\r\n\r\nñandú\r\n"));
+		assertThat(str, containsString("name=\"metadata\"\r\nContent-Type: application/json\r\n\r\n{\"a\":1}\r\n"));
+		assertThat(str, containsString("name=\"bytes\"; filename=\"bytes.bin\"\r\n"
+				+ "Content-Type: application/octet-stream\r\n\r\n"));
+		assertThat(str, containsString("name=\"file\"; filename=\"" + file.getName() + "\"\r\n"
+				+ "Content-Type: text/plain\r\n\r\nfile contents\r\n"));
+		assertThat(str, containsString("filename=\"stream.txt\"\r\nContent-Type: text/plain\r\n\r\n"
+				+ "stream contents\r\n"));
+	}
+
+	@Test
+	public void testWriteToMatchesToByteArray() throws IOException {
+		body.addPart("text", "value")
+			.addPart("bytes", "bytes.bin", new byte[] { 1, 2, 3 }, null);
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		body.writeTo(out);
+
+		assertArrayEquals(out.toByteArray(), body.toByteArray());
+	}
+
+	@Test
+	public void testQuotesAreEscaped() throws IOException {
+		body.addPart("na\"me", "value");
+
+		assertThat(new String(body.toByteArray(), CHARSET), containsString("name=\"na%22me\""));
+	}
+
+	@Test(expected = IOException.class)
+	public void testShortStreamFails() throws IOException {
+		body.addPart("stream", "stream.txt", new ByteArrayInputStream(new byte[] { 1, 2 }), 3, null);
+		body.toByteArray();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeStreamLength() {
+		body.addPart("stream", "stream.txt", new ByteArrayInputStream(new byte[0]), -1, null);
+	}
+
+	private static String boundaryOf(final MultipartBody body) {
+		return body.getContentType().substring(body.getContentType().indexOf('=') + 1);
+	}
+}
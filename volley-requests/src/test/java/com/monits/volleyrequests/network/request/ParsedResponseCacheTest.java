@@ -0,0 +1,116 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.network.request;
+
+import com.android.volley.Cache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ParsedResponseCacheTest {
+	private static final String KEY = "http://www.google.com/";
+	private static final String OTHER_KEY = "http://www.google.com/other";
+	private static final Object VALUE = new Object();
+
+	private ParsedResponseCache cache;
+
+	@Before
+	public void setUp() {
+		cache = new ParsedResponseCache(2);
+	}
+
+	@Test
+	public void testGetSameEntry() {
+		cache.put(KEY, Object.class, newEntry("a"), VALUE);
+
+		assertSame(VALUE, cache.get(KEY, Object.class, newEntry("a")));
+	}
+
+	@Test
+	public void testGetDifferentType() {
+		cache.put(KEY, Object.class, newEntry("a"), VALUE);
+
+		assertNull(cache.get(KEY, String.class, newEntry("a")));
+	}
+
+	@Test
+	public void testGetChangedEtag() {
+		cache.put(KEY, Object.class, newEntry("a"), VALUE);
+
+		assertNull(cache.get(KEY, Object.class, newEntry("b")));
+	}
+
+	@Test
+	public void testGetChangedLastModified() {
+		final Cache.Entry entry = newEntry(null);
+		entry.responseHeaders = Collections.singletonMap("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT");
+		cache.put(KEY, Object.class, entry, VALUE);
+
+		final Cache.Entry modified = newEntry(null);
+		modified.responseHeaders = Collections.singletonMap("Last-Modified", "Thu, 22 Oct 2015 07:28:00 GMT");
+
+		assertSame(VALUE, cache.get(KEY, Object.class, entry));
+		assertNull(cache.get(KEY, Object.class, modified));
+	}
+
+	@Test
+	public void testEntriesWithoutValidatorsAreNotStored() {
+		final Cache.Entry entry = newEntry(null);
+		entry.serverDate = 0;
+		cache.put(KEY, Object.class, entry, VALUE);
+
+		assertNull(cache.get(KEY, Object.class, entry));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+		cache.put(KEY, Object.class, newEntry("a"), VALUE);
+		cache.put(OTHER_KEY, Object.class, newEntry("a"), VALUE);
+		cache.get(KEY, Object.class, newEntry("a"));
+		cache.put(KEY, String.class, newEntry("a"), VALUE);
+
+		assertSame(VALUE, cache.get(KEY, Object.class, newEntry("a")));
+		assertNull(cache.get(OTHER_KEY, Object.class, newEntry("a")));
+	}
+
+	@Test
+	public void testInvalidateRemovesAllTypes() {
+		cache.put(KEY, Object.class, newEntry("a"), VALUE);
+		cache.put(KEY, String.class, newEntry("a"), VALUE);
+		cache.invalidate(KEY);
+
+		assertNull(cache.get(KEY, Object.class, newEntry("a")));
+		assertNull(cache.get(KEY, String.class, newEntry("a")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNonPositiveMaxSize() {
+		new ParsedResponseCache(0);
+	}
+
+	private static Cache.Entry newEntry(final String etag) {
+		final Cache.Entry entry = new Cache.Entry();
+		entry.etag = etag;
+		entry.serverDate = 1000;
+		entry.responseHeaders = Collections.emptyMap();
+		return entry;
+	}
+}
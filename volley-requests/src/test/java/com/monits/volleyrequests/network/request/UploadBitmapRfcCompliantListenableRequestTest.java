@@ -39,6 +39,7 @@ import static junit.framework.Assert.assertTrue;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
 @RunWith(RobolectricTestRunner.class)
@@ -97,6 +98,25 @@ public class UploadBitmapRfcCompliantListenableRequestTest {
 		assertEquals(bitmap.getHeight(), decodedBitmap.getHeight());
 	}
 
+	@Test
+	public void testGetBodyIsReusedOnRetry() throws AuthFailureError {
+		final byte[] body = request.getBody();
+
+		assertNotNull(body);
+		assertSame("Body was rebuilt", body, request.getBody());
+	}
+
+	@Test
+	public void testGetBodyWithOptions() throws AuthFailureError, UnsupportedEncodingException {
+		request = new UploadBitmapRfcCompliantListenableRequest(Request.Method.POST,
+				"http://www.google.com/", new DummyListener<String>(), null, null,
+				Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888), "filename",
+				new BitmapUploadOptions(Bitmap.CompressFormat.PNG, 80, 50));
+
+		final String body = new String(request.getBody(), CHARSET);
+		assertTrue("Part content type does not match the format", body.contains("Content-Type: image/png"));
+	}
+
 	@Test
 	public void testToString() {
 		final String defaultToString = request.getClass().getName()
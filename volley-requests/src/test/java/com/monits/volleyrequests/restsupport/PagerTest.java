@@ -0,0 +1,276 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.restsupport;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.monits.volleyrequests.network.request.GsonEnvelopeRequest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD.TooManyStaticImports", "unchecked", "checkstyle:multiplestringliterals" })
+public class PagerTest {
+	private static final String BASE_URL = "http://test.domain.com";
+	private static final String ROUTE = "users";
+	private static final String URL = BASE_URL + "/" + ROUTE;
+	private static final String SECOND_URL = URL + "?page=2";
+	private static final String CHARSET = "UTF-8";
+
+	private RequestQueue queue;
+	private Pager.PageListener<String> listener;
+
+	@Before
+	public void setUp() {
+		Rest.setBaseUrl(BASE_URL);
+		Rest.setGson(new Gson());
+		Rest.setInterceptor(null);
+		queue = mock(RequestQueue.class);
+		listener = mock(Pager.PageListener.class);
+	}
+
+	@After
+	public void tearDown() {
+		Rest.setElementsKey(null);
+	}
+
+	@Test
+	public void testNothingIsFetchedUntilRequested() {
+		newPager();
+
+		verify(queue, never()).add(any(Request.class));
+	}
+
+	@Test
+	public void testLinkHeaderIsFollowed() throws UnsupportedEncodingException {
+		final Pager<String> pager = newPager();
+		pager.next();
+		respond(0, "[\"a\", \"b\"]", Collections.singletonMap("Link",
+				"<" + SECOND_URL + ">; rel=\"next\", <" + URL + "?page=9>; rel=\"last\""));
+
+		final Pager.Page<String> page = capturePage();
+		assertEquals(0, page.getIndex());
+		assertEquals(Arrays.asList("a", "b"), page.getElements());
+		assertFalse(page.isLast());
+		assertEquals(SECOND_URL, captureRequests().get(1).getUrl());
+	}
+
+	@Test
+	public void testEnvelopeCursorIsSentAsQueryParam() throws UnsupportedEncodingException {
+		Rest.setElementsKey("elements");
+		final Pager<String> pager = newPager();
+		pager.setCursorParam("after");
+		pager.next();
+		respond(0, "{\"elements\": [\"a\"], \"next\": \"abc\", \"total\": 2}",
+				Collections.<String, String>emptyMap());
+
+		final Pager.Page<String> page = capturePage();
+		assertEquals(Collections.singletonList("a"), page.getElements());
+		assertEquals(2, page.getMetadata().get("total").getAsInt());
+		assertEquals(URL + "?after=abc", captureRequests().get(1).getUrl());
+	}
+
+	@Test
+	public void testCursorDoesNotModifyTheCollection() throws UnsupportedEncodingException {
+		Rest.setElementsKey("elements");
+		final CollectionRequestBuilder<String> builder = Rest.all(ROUTE).get(String.class).query("q", "x");
+		final Pager<String> pager = builder.paged(queue, listener);
+		pager.next();
+		respond(0, "{\"elements\": [\"a\"], \"next\": \"a b\"}", Collections.<String, String>emptyMap());
+		pager.next();
+		respond(1, "{\"elements\": [\"b\"], \"next\": \"c\"}", Collections.<String, String>emptyMap());
+
+		final List<Request<?>> requests = captureRequests();
+		assertEquals(URL + "?q=x&cursor=a%20b", requests.get(1).getUrl());
+		assertEquals(URL + "?q=x&cursor=c", requests.get(2).getUrl());
+		assertEquals(URL + "?q=x", builder.getRequestUrl());
+	}
+
+	@Test
+	public void testCallerMetadataListenerIsKept() throws UnsupportedEncodingException {
+		Rest.setElementsKey("elements");
+		final GsonEnvelopeRequest.MetadataListener metadataListener =
+				mock(GsonEnvelopeRequest.MetadataListener.class);
+		final Pager<String> pager = Rest.all(ROUTE).get(String.class).onMetadata(metadataListener)
+				.paged(queue, listener);
+		pager.next();
+		respond(0, "{\"elements\": [\"a\"], \"total\": 1}", Collections.<String, String>emptyMap());
+
+		verify(metadataListener).onMetadata(any(JsonObject.class));
+		assertEquals(1, capturePage().getMetadata().get("total").getAsInt());
+	}
+
+	@Test
+	public void testEnvelopeLinkIsResolved() throws UnsupportedEncodingException {
+		Rest.setElementsKey("elements");
+		final Pager<String> pager = newPager();
+		pager.setNextKey("links.next");
+		pager.next();
+		respond(0, "{\"elements\": [\"a\"], \"links\": {\"next\": \"/users?page=2\"}}",
+				Collections.<String, String>emptyMap());
+
+		assertEquals(SECOND_URL, captureRequests().get(1).getUrl());
+	}
+
+	@Test
+	public void testLookAheadIsBounded() throws UnsupportedEncodingException {
+		final Pager<String> pager = newPager();
+		pager.next();
+		respondWithNext(0, "[\"a\"]");
+		respondWithNext(1, "[\"b\"]");
+
+		// Only the first page was requested, and a single one is prefetched
+		verify(listener, times(1)).onPage(any(Pager.Page.class));
+		verify(queue, times(2)).add(any(Request.class));
+
+		// The prefetched page is delivered right away, and the next one prefetched
+		pager.next();
+		verify(listener, times(2)).onPage(any(Pager.Page.class));
+		verify(queue, times(3)).add(any(Request.class));
+	}
+
+	@Test
+	public void testNoLookAhead() throws UnsupportedEncodingException {
+		final Pager<String> pager = newPager();
+		pager.setLookAhead(0);
+		pager.next();
+		respondWithNext(0, "[\"a\"]");
+
+		verify(queue, times(1)).add(any(Request.class));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeLookAhead() {
+		newPager().setLookAhead(-1);
+	}
+
+	@Test
+	public void testLastPage() throws UnsupportedEncodingException {
+		final Pager<String> pager = newPager();
+		pager.next();
+		respond(0, "[\"a\"]", Collections.<String, String>emptyMap());
+
+		assertTrue(capturePage().isLast());
+		assertFalse(pager.hasNext());
+		verify(queue, times(1)).add(any(Request.class));
+	}
+
+	@Test
+	public void testEmptyNextIsLastPage() throws UnsupportedEncodingException {
+		Rest.setElementsKey("elements");
+		final Pager<String> pager = newPager();
+		pager.next();
+		respond(0, "{\"elements\": [\"a\"], \"next\": \"\"}", Collections.<String, String>emptyMap());
+
+		assertTrue(capturePage().isLast());
+		assertFalse(pager.hasNext());
+		verify(queue, times(1)).add(any(Request.class));
+	}
+
+	@Test
+	public void testFailedPageIsFetchedAgainWhenRequested() throws UnsupportedEncodingException {
+		final Pager<String> pager = newPager();
+		pager.next();
+		final VolleyError error = new VolleyError();
+		captureRequests().get(0).deliverError(error);
+
+		verify(listener).onError(error);
+		assertTrue(pager.hasNext());
+
+		pager.next();
+		final List<Request<?>> requests = captureRequests();
+		assertEquals(2, requests.size());
+		assertEquals(URL, requests.get(1).getUrl());
+	}
+
+	@Test
+	public void testCancel() {
+		final Pager<String> pager = newPager();
+		pager.next();
+		pager.cancel();
+
+		assertTrue(captureRequests().get(0).isCanceled());
+		assertFalse(pager.hasNext());
+	}
+
+	@Test
+	public void testParseNextLink() {
+		assertEquals(SECOND_URL, Pager.parseNextLink("<" + SECOND_URL + ">; rel=\"next\""));
+		assertEquals(SECOND_URL, Pager.parseNextLink("<" + URL + ">; rel=\"prev\", <"
+				+ SECOND_URL + ">; title=\"x\"; rel=\"next last\""));
+		assertEquals(SECOND_URL, Pager.parseNextLink("<" + SECOND_URL + ">;rel=next"));
+		assertNull(Pager.parseNextLink("<" + URL + ">; rel=\"prev\""));
+		assertNull(Pager.parseNextLink("<" + URL));
+		assertNull(Pager.parseNextLink(null));
+	}
+
+	private Pager<String> newPager() {
+		return Rest.all(ROUTE).get(String.class).paged(queue, listener);
+	}
+
+	private void respondWithNext(final int index, final String body) throws UnsupportedEncodingException {
+		respond(index, body, Collections.singletonMap("Link", "<" + URL + "?page=" + (index + 2)
+				+ ">; rel=\"next\""));
+	}
+
+	private void respond(final int index, final String body, final Map<String, String> headers)
+			throws UnsupportedEncodingException {
+		final Pager<String>.PageRequest request = (Pager<String>.PageRequest) captureRequests().get(index);
+		final Response<List<String>> response = request.parseNetworkResponse(
+				new NetworkResponse(200, body.getBytes(CHARSET), headers, false));
+		assertTrue(response.isSuccess());
+		request.deliverResponse(response.result);
+	}
+
+	private List<Request<?>> captureRequests() {
+		final ArgumentCaptor<Request> captor = ArgumentCaptor.forClass(Request.class);
+		verify(queue, atLeastOnce()).add(captor.capture());
+		return (List<Request<?>>) (List<?>) captor.getAllValues();
+	}
+
+	private Pager.Page<String> capturePage() {
+		final ArgumentCaptor<Pager.Page> captor = ArgumentCaptor.forClass(Pager.Page.class);
+		verify(listener).onPage(captor.capture());
+		return captor.getValue();
+	}
+}
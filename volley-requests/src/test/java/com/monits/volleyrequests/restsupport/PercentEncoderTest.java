@@ -0,0 +1,79 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.restsupport;
+
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@SuppressWarnings("checkstyle:multiplestringliterals")
+public class PercentEncoderTest {
+
+	@Test
+	public void testNothingToEncodeIsNotCopied() {
+		final String segment = "user-1_2.3~:@!$&'()*+,;=";
+
+		assertSame(segment, PercentEncoder.encodePathSegment(segment));
+	}
+
+	@Test
+	public void testPathSegmentEscapesSlashes() {
+		assertEquals("a%2Fb%20c%3F%23%25", PercentEncoder.encodePathSegment("a/b c?#%"));
+	}
+
+	@Test
+	public void testPathKeepsSlashes() {
+		assertEquals("users/john%20doe", PercentEncoder.encodePath("users/john doe"));
+	}
+
+	@Test
+	public void testQueryComponentEscapesDelimiters() {
+		final StringBuilder sb = new StringBuilder();
+		PercentEncoder.appendQueryComponent(sb, "a=b&c+d e/f?g");
+
+		assertEquals("a%3Db%26c%2Bd%20e/f?g", sb.toString());
+	}
+
+	@Test
+	public void testUtf8() {
+		// 2, 3 and 4 byte sequences
+		assertEquals("%C3%A9%E2%82%AC%F0%9F%98%80", PercentEncoder.encodePathSegment("\u00e9\u20ac\ud83d\ude00"));
+	}
+
+	@Test
+	public void testUnpairedSurrogateIsReplaced() {
+		assertEquals("a%3Fb", PercentEncoder.encodePathSegment("a\ud83db"));
+		assertEquals("a%3Fb", PercentEncoder.encodePathSegment("a\ude00b"));
+	}
+
+	@Test
+	public void testRoundTrip() throws UnsupportedEncodingException {
+		final StringBuilder sb = new StringBuilder();
+		for (char c = 0; c < 0x800; c++) {
+			sb.append(c);
+		}
+		final String original = sb.toString();
+		sb.setLength(0);
+		PercentEncoder.appendQueryComponent(sb, original);
+
+		// URLDecoder decodes '+' as a space, which query components always escape
+		assertEquals(original, URLDecoder.decode(sb.toString(), "UTF-8"));
+	}
+}
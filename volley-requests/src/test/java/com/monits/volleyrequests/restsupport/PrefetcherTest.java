@@ -0,0 +1,336 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.restsupport;
+
+import android.content.Context;
+
+import com.android.volley.Cache;
+import com.android.volley.ExecutorDelivery;
+import com.android.volley.Network;
+import com.android.volley.Request;
+import com.android.volley.RequestDecorator;
+import com.android.volley.RequestQueue;
+import com.android.volley.RequestTestUtils;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.google.gson.Gson;
+import com.monits.volleyrequests.network.request.ListenableRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD.TooManyStaticImports", "unchecked" })
+public class PrefetcherTest {
+	private static final String BASE_URL = "http://test.domain.com";
+	private static final String ROUTE = "users";
+	private static final int MAX_CONCURRENT = 2;
+
+	private RequestQueue queue;
+	private Cache cache;
+	private TestPrefetcher prefetcher;
+
+	@Before
+	public void setUp() {
+		Rest.setBaseUrl(BASE_URL);
+		Rest.setGson(new Gson());
+		Rest.setInterceptor(null);
+		queue = mock(RequestQueue.class);
+		cache = mock(Cache.class);
+		when(queue.getCache()).thenReturn(cache);
+		prefetcher = new TestPrefetcher(queue);
+	}
+
+	@Test
+	public void testPrefetchesHaveLowPriority() {
+		assertTrue(prefetcher.prefetch(Rest.one(ROUTE, 1).get(Object.class)));
+
+		assertEquals(Request.Priority.LOW, captureAdded().get(0).getPriority());
+	}
+
+	@Test
+	public void testPrefetchesDontCallListeners() {
+		final Response.Listener<Object> listener = mock(Response.Listener.class);
+		final Response.ErrorListener errorListener = mock(Response.ErrorListener.class);
+		prefetcher.prefetch(Rest.one(ROUTE, 1).get(Object.class).onSuccess(listener).onError(errorListener));
+
+		final Request<Object> prefetch = (Request<Object>) captureAdded().get(0);
+		RequestTestUtils.deliverResponse(prefetch, new Object());
+		prefetch.deliverError(new VolleyError());
+
+		verify(listener, never()).onResponse(any());
+		verify(errorListener, never()).onErrorResponse(any(VolleyError.class));
+	}
+
+	@Test
+	public void testConcurrentPrefetchesAreCapped() {
+		for (int i = 0; i < MAX_CONCURRENT + 1; i++) {
+			prefetcher.prefetch(Rest.one(ROUTE, i).get(Object.class));
+		}
+
+		verify(queue, times(MAX_CONCURRENT)).add(any(Request.class));
+
+		// Once one finishes, the next one is sent
+		RequestTestUtils.finish(captureAdded().get(0));
+		verify(queue, times(MAX_CONCURRENT + 1)).add(any(Request.class));
+	}
+
+	@Test
+	public void testSameResourceIsPrefetchedOnce() {
+		assertTrue(prefetcher.prefetch(Rest.one(ROUTE, 1).get(Object.class)));
+		assertFalse(prefetcher.prefetch(Rest.one(ROUTE, 1).get(Object.class)));
+
+		verify(queue, times(1)).add(any(Request.class));
+	}
+
+	@Test
+	public void testForegroundRequestCancelsPrefetch() {
+		prefetcher.prefetch(Rest.one(ROUTE, 1).get(Object.class));
+		final Request<?> prefetch = captureAdded().get(0);
+
+		final Request<Object> foreground = Rest.one(ROUTE, 1).get(Object.class).request();
+		prefetcher.add(foreground);
+
+		assertTrue(prefetch.isCanceled());
+		assertFalse(foreground.isCanceled());
+		verify(queue).add(foreground);
+	}
+
+	@Test
+	public void testCanceledPrefetchDoesNotCancelRequest() {
+		final ListenableRequest.CancelListener cancelListener = mock(ListenableRequest.CancelListener.class);
+		final Request<Object> request = Rest.one(ROUTE, 1).get(Object.class).onCancel(cancelListener).request();
+		prefetcher.prefetch(request);
+		final Request<?> prefetch = captureAdded().get(0);
+
+		prefetcher.add(Rest.one(ROUTE, 1).get(Object.class).request());
+		prefetcher.prefetch(Rest.one(ROUTE, 2).get(Object.class));
+		prefetcher.cancelAll();
+
+		assertTrue(prefetch.isCanceled());
+		assertFalse(request.isCanceled());
+		verify(cancelListener, never()).onCancel();
+	}
+
+	@Test
+	public void testFreshResourcesAreNotPrefetched() {
+		when(cache.get(Rest.one(ROUTE, 1).getUrl())).thenReturn(newFreshEntry());
+
+		assertFalse(prefetcher.prefetch(Rest.one(ROUTE, 1).get(Object.class)));
+		verify(queue, never()).add(any(Request.class));
+	}
+
+	@Test
+	public void testStaleResourcesArePrefetched() {
+		final Cache.Entry entry = newFreshEntry();
+		entry.softTtl = 0;
+		when(cache.get(Rest.one(ROUTE, 1).getUrl())).thenReturn(entry);
+
+		assertTrue(prefetcher.prefetch(Rest.one(ROUTE, 1).get(Object.class)));
+		verify(queue).add(any(Request.class));
+	}
+
+	@Test
+	public void testForegroundRequestIsNotHeldBehindPrefetch() throws InterruptedException {
+		final String sentinelUrl = Rest.one(ROUTE, 2).getUrl();
+		final MapCache cache = new MapCache(sentinelUrl);
+
+		// No network threads, so prefetches never leave the network queue
+		final RequestQueue realQueue = new RequestQueue(cache, mock(Network.class), 0,
+				new ExecutorDelivery(new Executor() {
+					@Override
+					public void execute(final Runnable command) {
+						command.run();
+					}
+				}));
+		realQueue.start();
+		try {
+			final Prefetcher realPrefetcher = new TestPrefetcher(realQueue);
+			realPrefetcher.prefetch(Rest.one(ROUTE, 1).get(Object.class));
+
+			// Once the cache dispatcher looks up a later request of the same priority, the prefetch is past it
+			realQueue.add(new RequestDecorator<Object>(Rest.one(ROUTE, 2).get(Object.class).request()) {
+				@Override
+				public Priority getPriority() {
+					return Priority.LOW;
+				}
+			});
+			assertTrue(cache.sentinelLookedUp.await(1, TimeUnit.SECONDS));
+
+			// The foreground request is served from cache, rather than waiting for the prefetch
+			cache.put(Rest.one(ROUTE, 1).getUrl(), newFreshEntry());
+			final Response.Listener<Object> listener = mock(Response.Listener.class);
+			final CountDownLatch finished = new CountDownLatch(1);
+			realPrefetcher.add(new RequestDecorator<Object>(Rest.one(ROUTE, 1).get(Object.class)
+					.onSuccess(listener).request()) {
+				@Override
+				protected void onFinish() {
+					finished.countDown();
+				}
+			});
+
+			assertTrue(finished.await(1, TimeUnit.SECONDS));
+			verify(listener).onResponse(any());
+		} finally {
+			realQueue.stop();
+		}
+	}
+
+	@Test
+	public void testForegroundRequestDropsWaitingPrefetch() {
+		for (int i = 0; i < MAX_CONCURRENT + 1; i++) {
+			prefetcher.prefetch(Rest.one(ROUTE, i).get(Object.class));
+		}
+
+		prefetcher.add(Rest.one(ROUTE, MAX_CONCURRENT).get(Object.class).request());
+		RequestTestUtils.finish(captureAdded().get(0));
+
+		// The foreground request was added, but not the waiting prefetch
+		verify(queue, times(MAX_CONCURRENT + 1)).add(any(Request.class));
+	}
+
+	@Test
+	public void testNothingIsPrefetchedOnMeteredNetworks() {
+		prefetcher.metered = true;
+
+		assertFalse(prefetcher.prefetch(Rest.one(ROUTE, 1).get(Object.class)));
+		verify(queue, never()).add(any(Request.class));
+	}
+
+	@Test
+	public void testWaitingPrefetchesAreDroppedOnMeteredNetworks() {
+		for (int i = 0; i < MAX_CONCURRENT + 1; i++) {
+			prefetcher.prefetch(Rest.one(ROUTE, i).get(Object.class));
+		}
+
+		prefetcher.metered = true;
+		RequestTestUtils.finish(captureAdded().get(0));
+
+		verify(queue, times(MAX_CONCURRENT)).add(any(Request.class));
+	}
+
+	@Test
+	public void testCancelAll() {
+		prefetcher.prefetch(Rest.one(ROUTE, 1).get(Object.class));
+		prefetcher.cancelAll();
+
+		assertTrue(captureAdded().get(0).isCanceled());
+		assertTrue(prefetcher.prefetch(Rest.one(ROUTE, 1).get(Object.class)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsafeRequestsAreRejected() {
+		prefetcher.prefetch(Rest.one(ROUTE, 1).delete());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidMaxConcurrent() {
+		new Prefetcher(mock(Context.class), queue, 0);
+	}
+
+	private List<Request<?>> captureAdded() {
+		final ArgumentCaptor<Request> captor = ArgumentCaptor.forClass(Request.class);
+		verify(queue, atLeastOnce()).add(captor.capture());
+		return (List<Request<?>>) (List<?>) captor.getAllValues();
+	}
+
+	private static Cache.Entry newFreshEntry() {
+		final Cache.Entry entry = new Cache.Entry();
+		entry.data = "{}".getBytes();
+		entry.responseHeaders = Collections.emptyMap();
+		entry.ttl = Long.MAX_VALUE;
+		entry.softTtl = Long.MAX_VALUE;
+		return entry;
+	}
+
+	private static class MapCache implements Cache {
+		private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+		private final String sentinelKey;
+		private final CountDownLatch sentinelLookedUp = new CountDownLatch(1);
+
+		/*package*/ MapCache(final String sentinelKey) {
+			this.sentinelKey = sentinelKey;
+		}
+
+		@Override
+		public Entry get(final String key) {
+			if (sentinelKey.equals(key)) {
+				sentinelLookedUp.countDown();
+			}
+			return entries.get(key);
+		}
+
+		@Override
+		public void put(final String key, final Entry entry) {
+			entries.put(key, entry);
+		}
+
+		@Override
+		public void initialize() {
+			// Nothing to do
+		}
+
+		@Override
+		public void invalidate(final String key, final boolean fullExpire) {
+			entries.remove(key);
+		}
+
+		@Override
+		public void remove(final String key) {
+			entries.remove(key);
+		}
+
+		@Override
+		public void clear() {
+			entries.clear();
+		}
+	}
+
+	private static class TestPrefetcher extends Prefetcher {
+		private boolean metered;
+
+		/*package*/ TestPrefetcher(final RequestQueue queue) {
+			super(mock(Context.class), queue, MAX_CONCURRENT);
+		}
+
+		@Override
+		protected boolean isNetworkMetered() {
+			return metered;
+		}
+	}
+}
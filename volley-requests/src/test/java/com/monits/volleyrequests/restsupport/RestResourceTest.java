@@ -88,6 +88,30 @@ public class RestResourceTest {
 		assertEquals(Request.Method.GET, request.getMethod());
 	}
 
+	@Test
+	public void testQueryIsSortedAndEncoded() {
+		final Map<String, String> queryParams = new HashMap<>();
+		queryParams.put("q", "a b&c");
+		queryParams.put(QUERY_PARAM_1, QUERY_VALUE_1);
+
+		final Request<List<Object>> request
+				= restResource.getAll(null, queryParams, new DummyListener<List<Object>>(), null);
+
+		assertEquals(GET_ALL_URL + "?" + QUERY_PARAM_1 + "=" + QUERY_VALUE_1 + "&q=a%20b%26c",
+				request.getUrl());
+	}
+
+	@Test
+	public void testResourceParamsAreEncoded() {
+		final Map<String, String> resourceParams = new HashMap<>();
+		resourceParams.put(RESOURCE_PARAM_USER_ID, "john doe");
+
+		final Request<Object> request
+				= restResource.getObject(resourceParams, new DummyListener<>(), null);
+
+		assertEquals(GET_ALL_URL + "/john%20doe", request.getUrl());
+	}
+
 	@Test
 	public void testGetMultipleParams() {
 		final Map<String, String> resourceParams = new HashMap<>();
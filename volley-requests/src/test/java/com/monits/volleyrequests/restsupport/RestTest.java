@@ -16,12 +16,21 @@
 package com.monits.volleyrequests.restsupport;
 
 import com.android.volley.AuthFailureError;
-import com.android.volley.JSONArrayRequestDecorator;
+import com.android.volley.BatchRequest;
 import com.android.volley.Request;
+import com.android.volley.RequestDecorator;
 import com.android.volley.Response;
 import com.monits.volleyrequests.network.request.ListenableRequest;
 import com.google.gson.Gson;
+import com.google.gson.annotations.SerializedName;
+import com.android.volley.JSONArrayRequestDecorator;
+import com.monits.volleyrequests.network.request.CachePolicy;
+import com.monits.volleyrequests.network.request.ChunkedGsonListRequest;
+import com.monits.volleyrequests.network.request.GsonEnvelopeRequest;
+import com.monits.volleyrequests.network.request.GsonMultipartRequest;
+import com.monits.volleyrequests.network.request.MultipartBody;
 import com.monits.volleyrequests.network.request.GsonRequest;
+import com.monits.volleyrequests.network.request.HeaderCacheKeyStrategy;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -31,17 +40,20 @@ import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
 
 import java.net.MalformedURLException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
-import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertNotNull;
@@ -182,14 +194,107 @@ public class RestTest {
 				.query(queryParams) // Use map method
 				.request();
 
-		// Params may be in any order, so we check it's any of the plausible alternatives
-		final String param1 = QUERY_PARAM_1 + "=" + QUERY_VALUE_1;
-		final String param2 = QUERY_PARAM_2 + "=" + QUERY_VALUE_2;
-		assertThat(request.getUrl(), anyOf(equalTo(GET_ALL_URL + "?" + param1 + "&" + param2),
-				equalTo(GET_ALL_URL + "?" + param2 + "&" + param1)));
+		// Params are sorted by name
+		assertEquals(GET_ALL_URL + "?" + QUERY_PARAM_1 + "=" + QUERY_VALUE_1 + "&" + QUERY_PARAM_2 + "="
+				+ QUERY_VALUE_2, request.getUrl());
 		assertEquals(Request.Method.GET, request.getMethod());
 	}
 
+	@Test
+	public void testQueryOrderDoesNotChangeUrl() {
+		final String url = Rest.all(RESOURCE_ROUTE_USERS).get(Object.class)
+				.query(QUERY_PARAM_2, QUERY_VALUE_2).query(QUERY_PARAM_1, QUERY_VALUE_1).getRequestUrl();
+
+		assertEquals(Rest.all(RESOURCE_ROUTE_USERS).get(Object.class)
+				.query(QUERY_PARAM_1, QUERY_VALUE_1).query(QUERY_PARAM_2, QUERY_VALUE_2).getRequestUrl(), url);
+	}
+
+	@Test
+	public void testQueryIsEncoded() {
+		final String url = Rest.all(RESOURCE_ROUTE_USERS).get(Object.class)
+				.query("q", "a b&c=d+\u00e9").query("sort by", "name").getRequestUrl();
+
+		assertEquals(GET_ALL_URL + "?q=a%20b%26c%3Dd%2B%C3%A9&sort%20by=name", url);
+	}
+
+	@Test
+	public void testMultiValuedQuery() {
+		final String url = Rest.all(RESOURCE_ROUTE_USERS).get(Object.class)
+				.query("id", 3, 1, 2).query(QUERY_PARAM_1, QUERY_VALUE_1).getRequestUrl();
+
+		// Values keep their order
+		assertEquals(GET_ALL_URL + "?" + QUERY_PARAM_1 + "=" + QUERY_VALUE_1 + "&id=3&id=1&id=2", url);
+	}
+
+	@Test
+	public void testMultiValuedQueryOverwrites() {
+		final String url = Rest.all(RESOURCE_ROUTE_USERS).get(Object.class)
+				.query("id", 1, 2).query("id", "3").getRequestUrl();
+
+		assertEquals(GET_ALL_URL + "?id=3", url);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMultiValuedQueryWithoutValues() {
+		Rest.all(RESOURCE_ROUTE_USERS).get(Object.class).query("id", new Object[0]);
+	}
+
+	@Test
+	public void testPathIsEncoded() {
+		final String url = Rest.one("user groups/admins", "a/b c").all("cards").getUrl();
+
+		// Slashes are kept in routes, but not in ids
+		assertEquals(BASE_URL + "/user%20groups/admins/a%2Fb%20c/cards", url);
+	}
+
+	@Test
+	public void testSeveralIdsAreEncoded() {
+		final String url = Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID)
+				.several(RESOURCE_ROUTE_LISTS, "a b", "c/d").getUrl();
+
+		assertEquals(GET_ALL_URL + "/" + RESOURCE_VALUE_USER_ID + "/" + RESOURCE_ROUTE_LISTS + "/a%20b,c%2Fd",
+				url);
+	}
+
+	@Test
+	public void testSlashesAreNormalized() {
+		assertEquals(GET_ALL_URL + "/" + RESOURCE_VALUE_USER_ID + "/" + RESOURCE_ROUTE_LISTS,
+				Rest.one("/" + RESOURCE_ROUTE_USERS + "/", RESOURCE_VALUE_USER_ID)
+					.all("//" + RESOURCE_ROUTE_LISTS + "/").getUrl());
+		assertEquals(GET_ALL_URL, Rest.allUrl(RESOURCE_ROUTE_USERS, BASE_URL + "/").getUrl());
+	}
+
+	@Test
+	public void testCacheKeyStrategy() {
+		final Request<Object> request = Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID)
+				.get(Object.class)
+				.header("Accept-Language", "es")
+				.header("Authorization", "Bearer token")
+				.cacheKey(new HeaderCacheKeyStrategy("Accept-Language"))
+				.request();
+
+		assertEquals(GET_ALL_URL + "/" + RESOURCE_VALUE_USER_ID + "#accept-language=es", request.getCacheKey());
+	}
+
+	@Test
+	public void testMethodKeepsBuilderKind() {
+		assertThat(Rest.all(RESOURCE_ROUTE_USERS).method(Request.Method.GET, Object.class),
+				instanceOf(RestCollection.class));
+		assertThat(Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID).method(Request.Method.GET, Object.class),
+				instanceOf(RestElement.class));
+	}
+
+	@Test
+	public void testMethodDoesNotCopyRequestFields() {
+		final RequestBuilder<Object, ?> builder = Rest.all(RESOURCE_ROUTE_USERS).get(Object.class)
+				.query(QUERY_PARAM_1, QUERY_VALUE_1);
+
+		final Request<Void> request = ((UrlBuilder) builder).delete().request();
+
+		assertEquals(GET_ALL_URL, request.getUrl());
+		assertEquals(Request.Method.DELETE, request.getMethod());
+	}
+
 	@Test
 	public void testGetMultipleParams() {
 		final Request<List<Object>> request = Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID)
@@ -284,6 +389,139 @@ public class RestTest {
 		assertEquals(Request.Method.PUT, request.getMethod());
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testPutWithQueryInvalidatesElementAndCollection() {
+		final Request<Object> request = Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID)
+				.put(new Object()).query(QUERY_PARAM_1, QUERY_VALUE_1).request();
+
+		final GsonRequest<Object> gsonRequest = (GsonRequest<Object>) ((RequestDecorator<Object>) request)
+				.getRequest();
+		assertEquals(new HashSet<>(Arrays.asList(GET_ALL_URL + "/" + RESOURCE_VALUE_USER_ID, GET_ALL_URL)),
+				gsonRequest.getInvalidatedUrls());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testPostToCollectionInvalidatesNothingElse() {
+		final Request<Object> request = Rest.all(RESOURCE_ROUTE_USERS).post(new Object()).request();
+
+		final GsonRequest<Object> gsonRequest = (GsonRequest<Object>) ((RequestDecorator<Object>) request)
+				.getRequest();
+		assertEquals(Collections.emptySet(), gsonRequest.getInvalidatedUrls());
+	}
+
+	@Test
+	public void testDeleteSingleInvalidatesCollection() {
+		final Request<Void> request = Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID)
+				.delete().request();
+
+		assertEquals(Collections.singleton(GET_ALL_URL), ((GsonRequest<Void>) request).getInvalidatedUrls());
+	}
+
+	@Test
+	public void testCachePolicy() {
+		final Request<Object> request = Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID)
+				.get(Object.class).cachePolicy(CachePolicy.NETWORK_ONLY).request();
+
+		assertEquals(CachePolicy.NETWORK_ONLY, ((GsonRequest<Object>) request).getCachePolicy());
+		assertFalse(request.shouldCache());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testCachePolicyOnDecoratedRequest() {
+		final ChunkedGsonListRequest.ChunkListener<Object> chunkListener =
+				mock(ChunkedGsonListRequest.ChunkListener.class);
+
+		Rest.setElementsKey("elements");
+		final Request<List<Object>> request = Rest.all(RESOURCE_ROUTE_USERS).get(Object.class)
+				.onChunk(10, chunkListener)
+				.cachePolicy(CachePolicy.NETWORK_ONLY)
+				.request();
+		Rest.setElementsKey(null);
+
+		assertThat(request, instanceOf(RequestDecorator.class));
+		assertFalse(request.shouldCache());
+	}
+
+	@Test
+	public void testFields() {
+		final String url = Rest.all(RESOURCE_ROUTE_USERS).get(Object.class)
+				.fields(RESOURCE_ROUTE_USER_NAME, RESOURCE_ROUTE_USER_ID)
+				.getRequestUrl();
+
+		assertEquals(GET_ALL_URL + "?fields=id,name", url);
+	}
+
+	@Test
+	public void testFieldsOrderDoesNotChangeCacheKey() {
+		final Request<Object> request = Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID)
+				.get(Object.class).fields(RESOURCE_ROUTE_USER_NAME, RESOURCE_ROUTE_USER_ID).request();
+		final Request<Object> sameRequest = Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID)
+				.get(Object.class).fields(RESOURCE_ROUTE_USER_ID).fields(RESOURCE_ROUTE_USER_NAME).request();
+		final Request<Object> otherRequest = Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID)
+				.get(Object.class).fields(RESOURCE_ROUTE_USER_ID).request();
+		final Request<Object> fullRequest = Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID)
+				.get(Object.class).request();
+
+		assertEquals(request.getCacheKey(), sameRequest.getCacheKey());
+		assertThat(request.getCacheKey(), not(equalTo(otherRequest.getCacheKey())));
+		assertThat(request.getCacheKey(), not(equalTo(fullRequest.getCacheKey())));
+	}
+
+	@Test
+	public void testProject() {
+		final String url = Rest.all(RESOURCE_ROUTE_USERS).get(UserSummary.class)
+				.project()
+				.getRequestUrl();
+
+		assertEquals(GET_ALL_URL + "?fields=first_name,id", url);
+	}
+
+	@Test
+	public void testInclude() {
+		final String url = Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID).get(Object.class)
+				.include(RESOURCE_ROUTE_LISTS)
+				.getRequestUrl();
+
+		assertEquals(GET_ALL_URL + "/" + RESOURCE_VALUE_USER_ID + "?include=" + RESOURCE_ROUTE_LISTS, url);
+	}
+
+	@Test
+	public void testProjectionParams() {
+		Rest.setProjectionParams("select", "expand");
+		try {
+			final String url = Rest.all(RESOURCE_ROUTE_USERS).get(Object.class)
+					.fields(RESOURCE_ROUTE_USER_ID)
+					.include(RESOURCE_ROUTE_LISTS)
+					.getRequestUrl();
+
+			assertEquals(GET_ALL_URL + "?expand=" + RESOURCE_ROUTE_LISTS + "&select=id", url);
+		} finally {
+			Rest.setProjectionParams("fields", "include");
+		}
+	}
+
+	@Test
+	public void testBatch() {
+		final BatchRequest request = Rest.batch("batch")
+				.add(Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID).get(Object.class))
+				.add(Rest.all(RESOURCE_ROUTE_USERS).get(Object.class))
+				.request();
+
+		assertEquals(BASE_URL + "/batch", request.getUrl());
+		assertEquals(Request.Method.POST, request.getMethod());
+		assertEquals(2, request.getRequests().size());
+		assertEquals(GET_ALL_URL + "/" + RESOURCE_VALUE_USER_ID, request.getRequests().get(0).getUrl());
+		assertEquals(GET_ALL_URL, request.getRequests().get(1).getUrl());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testEmptyBatch() {
+		Rest.batch("batch").request();
+	}
+
 	@Test
 	public void testInterceptorGetsCalled() {
 		final Rest.RequestInterceptor interceptor = mock(Rest.RequestInterceptor.class);
@@ -318,12 +556,75 @@ public class RestTest {
 				.get(Object.class);
 
 		Rest.setElementsKey("elements");
-		assertThat(requestBuilder.request(), instanceOf(JSONArrayRequestDecorator.class));
+		assertThat(requestBuilder.request(), instanceOf(GsonEnvelopeRequest.class));
 
 		Rest.setElementsKey(null);
 		assertThat(requestBuilder.request(), instanceOf(GsonRequest.class));
 	}
 
+	@Test
+	public void testGetAllWithMetadataListener() {
+		final GsonEnvelopeRequest.MetadataListener metadataListener =
+				mock(GsonEnvelopeRequest.MetadataListener.class);
+
+		Rest.setElementsKey("elements");
+		final Request<List<Object>> request = Rest.all(RESOURCE_ROUTE_USERS).get(Object.class)
+				.onMetadata(metadataListener)
+				.query(QUERY_PARAM_1, QUERY_VALUE_1)
+				.request();
+		Rest.setElementsKey(null);
+
+		assertThat(request, instanceOf(GsonEnvelopeRequest.class));
+		assertEquals(GET_ALL_URL + "?" + QUERY_PARAM_1 + "=" + QUERY_VALUE_1, request.getUrl());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testGetAllWithChunkListener() {
+		final ChunkedGsonListRequest.ChunkListener<Object> chunkListener =
+				mock(ChunkedGsonListRequest.ChunkListener.class);
+
+		final Request<List<Object>> request = Rest.all(RESOURCE_ROUTE_USERS).get(Object.class)
+				.onChunk(10, chunkListener)
+				.request();
+
+		assertThat(request, instanceOf(ChunkedGsonListRequest.class));
+		assertEquals(10, ((ChunkedGsonListRequest<Object>) request).getChunkSize());
+		assertEquals(GET_ALL_URL, request.getUrl());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testGetAllWithChunkListenerAndElementsKey() {
+		final ChunkedGsonListRequest.ChunkListener<Object> chunkListener =
+				mock(ChunkedGsonListRequest.ChunkListener.class);
+
+		Rest.setElementsKey("elements");
+		final Request<List<Object>> request = Rest.all(RESOURCE_ROUTE_USERS).get(Object.class)
+				.onChunk(10, chunkListener)
+				.request();
+		Rest.setElementsKey(null);
+
+		assertThat(request, instanceOf(JSONArrayRequestDecorator.class));
+		assertThat(((JSONArrayRequestDecorator<List<Object>>) request).getRequest(),
+				instanceOf(ChunkedGsonListRequest.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testPostMultipart() {
+		final MultipartBody body = new MultipartBody().addPart("name", "value");
+		final Request<Object> request = Rest.all(RESOURCE_ROUTE_USERS)
+				.post(Object.class)
+				.multipart(body)
+				.request();
+
+		assertThat(request, instanceOf(RequestDecorator.class));
+		assertThat(((RequestDecorator<Object>) request).getRequest(), instanceOf(GsonMultipartRequest.class));
+		assertEquals(body.getContentType(), request.getBodyContentType());
+		assertEquals(Request.Method.POST, request.getMethod());
+	}
+
 	@Test
 	public void testPostWithoutObject() {
 		final Request<Object> request = Rest.one(RESOURCE_ROUTE_USERS, RESOURCE_VALUE_USER_ID)
@@ -393,4 +694,15 @@ public class RestTest {
 		request.cancel();
 		verify(cancelListener, only()).onCancel();
 	}
+
+	private static class BaseSummary {
+		private static final long serialVersionUID = 1L;
+		private int id;
+	}
+
+	private static class UserSummary extends BaseSummary {
+		@SerializedName("first_name")
+		private String firstName;
+		private transient String cached;
+	}
 }
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2010 - 2015 Monits
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.monits.volleyrequests.restsupport;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+@SuppressWarnings("checkstyle:multiplestringliterals")
+public class UrlTemplateTest {
+	private static final Pattern PARAMETERS = Pattern.compile("/(:([^/]+))");
+
+	private static final String[] TEMPLATES = {
+		"",
+		"/",
+		"/user",
+		"/user/",
+		"/user/:userId",
+		"/user/:userId/",
+		"/user/:userId/card/:cardId",
+		"/user/:userId/card/:cardId/details",
+		"//user//:userId",
+		"/user/:/card",
+		"/:userId",
+		"/user:userId/:cardId",
+	};
+
+	@Test
+	public void testExpand() {
+		final Map<String, String> params = new HashMap<>();
+		params.put("userId", "123");
+		params.put("cardId", "4");
+
+		assertEquals("/user/123/card/4", new UrlTemplate("/user/:userId/card/:cardId").expand(params));
+	}
+
+	@Test
+	public void testMissingTrailingParamsYieldParent() {
+		final Map<String, String> params = Collections.singletonMap("userId", "123");
+
+		assertEquals("/user/123/card", new UrlTemplate("/user/:userId/card/:cardId").expand(params));
+		assertEquals("/user", new UrlTemplate("/user/:userId").expand(Collections.<String, String>emptyMap()));
+	}
+
+	@Test
+	public void testSlashesAreNormalized() {
+		final Map<String, String> params = Collections.singletonMap("userId", "/123/");
+
+		assertEquals("/user/123", new UrlTemplate("//user//:userId/").expand(params));
+	}
+
+	@Test
+	public void testMatchesRegexExpansion() {
+		final Map<String, String> full = new HashMap<>();
+		full.put("userId", "123");
+		full.put("cardId", "4");
+		final Map<String, String> partial = Collections.singletonMap("userId", "123");
+		final Map<String, String> none = Collections.emptyMap();
+
+		for (final String template : TEMPLATES) {
+			for (final Map<String, String> params : new Map[] { full, partial, none }) {
+				assertEquals(template + " with " + params, expandWithRegex(template, params),
+						new UrlTemplate(template).expand(params));
+			}
+		}
+	}
+
+	/**
+	 * The regex based expansion previously done on every request.
+	 */
+	private static String expandWithRegex(final String template, final Map<String, String> params) {
+		String url = template;
+		final Matcher matcher = PARAMETERS.matcher(url);
+		while (matcher.find()) {
+			final String value = params.get(matcher.group(2));
+			url = url.replace(matcher.group(1), value == null ? "" : value);
+		}
+		url = url.replaceAll("/{2,}", "/");
+		return url.replaceAll("/$", "");
+	}
+}